@@ -0,0 +1,14 @@
+@echo off
+rem Launch the game, using the application CDS archive from "mvn -Pcds package"
+rem when it exists. Extra arguments are passed to the JVM.
+set "DIR=%~dp0.."
+set "JAR=%DIR%\target\flappy-bird-java-1.0.0.jar"
+set "ARCHIVE=%DIR%\target\flappy.jsa"
+set "JAVA=java"
+if defined JAVA_HOME set "JAVA=%JAVA_HOME%\bin\java"
+
+if exist "%ARCHIVE%" (
+    "%JAVA%" -XX:SharedArchiveFile="%ARCHIVE%" -Xshare:auto %* -jar "%JAR%"
+) else (
+    "%JAVA%" %* -jar "%JAR%"
+)
@@ -0,0 +1,15 @@
+#!/bin/sh
+# Launch the game, using the application CDS archive from "mvn -Pcds package"
+# when it exists. Extra arguments are passed to the JVM, e.g.
+#   scripts/flappy.sh -Dflappy.party=2
+# The archive is only valid for the JDK and jar it was built with; the JVM
+# falls back to normal class loading if either has changed.
+DIR="$(cd "$(dirname "$0")/.." && pwd)"
+JAR="$DIR/target/flappy-bird-java-1.0.0.jar"
+ARCHIVE="$DIR/target/flappy.jsa"
+JAVA="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+if [ -f "$ARCHIVE" ]; then
+    exec "$JAVA" -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto "$@" -jar "$JAR"
+fi
+exec "$JAVA" "$@" -jar "$JAR"
@@ -0,0 +1,127 @@
+package com.example.flappy;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+
+/**
+ * Allocation budget check for the steady-state frame.
+ *
+ * Drives a headless GamePanel on the autopilot: every frame is one tick()
+ * plus one paintFrame() into an offscreen image, metered with the calling
+ * thread's allocated-byte counter. Frames that end a run and start the next
+ * one are excluded. Sound is off: clip playback is not part of the frame path.
+ *
+ * The tick allocates nothing at all, JIT or not, and any tick byte fails the
+ * check. Paint is zero once compiled, but Java2D's drawImage allocates a few
+ * Rectangles per blit that only C2's escape analysis removes, so a frame
+ * painted while the JDK recompiles drawImage can allocate. Warm-up therefore
+ * runs until STEADY_FRAMES frames in a row paint nothing, and during the
+ * measurement a paint that allocates is only tolerated as an isolated blip:
+ * two allocating frames in a row, or more than one per BLIP_INTERVAL frames,
+ * is a real per-frame allocation. Exits with status 1 if the budget is exceeded.
+ *
+ * Usage: java -cp flappy.jar com.example.flappy.AllocationBudget [frames] [warmupFrames]
+ */
+public class AllocationBudget {
+    private static final int STEADY_FRAMES = 5_000;
+    private static final int BLIP_INTERVAL = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+        // No window, no audio, and keep the player's high score file out of it
+        System.setProperty("java.awt.headless", "true");
+        System.setProperty("user.home", Files.createTempDirectory("flappy-alloc").toString());
+        SoundPlayer.setSoundsEnabled(false);
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        GamePanel panel = new GamePanel();
+        panel.startHeadless();
+        BufferedImage target = new BufferedImage(Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+
+        // At least the requested warm-up, then until the JIT has settled
+        int warmed = 0;
+        int steady = 0;
+        while (warmed < warmup || steady < STEADY_FRAMES) {
+            if (warmed == Math.max(warmup, STEADY_FRAMES) * 10) {
+                System.out.println("FAIL: frames still allocate after " + warmed + " warm-up frames");
+                System.exit(1);
+            }
+            long start = threads.getCurrentThreadAllocatedBytes();
+            boolean playing = frame(panel, g);
+            steady = playing && threads.getCurrentThreadAllocatedBytes() == start ? steady + 1 : 0;
+            warmed++;
+        }
+
+        long tickBytes = 0;
+        long paintBytes = 0;
+        long worstFrame = 0;
+        int allocatingFrames = 0;
+        int restarts = 0;
+        boolean consecutive = false;
+        boolean previousAllocated = false;
+        for (int i = 0; i < frames; i++) {
+            long start = threads.getCurrentThreadAllocatedBytes();
+            panel.tick();
+            long ticked = threads.getCurrentThreadAllocatedBytes();
+            panel.paintFrame(g);
+            long painted = threads.getCurrentThreadAllocatedBytes();
+
+            if (panel.getState() != GameState.PLAYING) {
+                // Run ended this frame: game over bookkeeping and the restart may allocate
+                restarts++;
+                panel.startHeadless();
+                previousAllocated = false;
+                continue;
+            }
+            long frameBytes = painted - start;
+            tickBytes += ticked - start;
+            paintBytes += painted - ticked;
+            boolean allocated = frameBytes > 0;
+            if (allocated) {
+                allocatingFrames++;
+                worstFrame = Math.max(worstFrame, frameBytes);
+                consecutive |= previousAllocated;
+            }
+            previousAllocated = allocated;
+        }
+        g.dispose();
+
+        int measured = frames - restarts;
+        System.out.printf("%d frames (%d warm-up, %d restarts excluded): tick %.2f B/frame, paint %.2f B/frame%n",
+                measured, warmed, restarts, (double) tickBytes / measured, (double) paintBytes / measured);
+        System.out.printf("%d frames allocated, worst frame %d bytes%n", allocatingFrames, worstFrame);
+        if (tickBytes > 0) {
+            System.out.println("FAIL: the tick allocates");
+            System.exit(1);
+        }
+        if (consecutive || allocatingFrames > Math.max(1, measured / BLIP_INTERVAL)) {
+            System.out.println("FAIL: paint allocates beyond isolated JIT recompiles");
+            System.exit(1);
+        }
+        System.out.println(allocatingFrames == 0 ? "OK: 0 bytes per frame"
+                : "OK: 0 bytes per tick, paint allocated only in isolated JIT recompiles");
+        System.exit(0);
+    }
+
+    /**
+     * One unmetered frame; returns false (after restarting) if the run ended in it.
+     */
+    private static boolean frame(GamePanel panel, Graphics2D g) {
+        panel.tick();
+        panel.paintFrame(g);
+        if (panel.getState() != GameState.PLAYING) {
+            panel.startHeadless();
+            return false;
+        }
+        return true;
+    }
+}
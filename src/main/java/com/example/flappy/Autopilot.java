@@ -0,0 +1,265 @@
+package com.example.flappy;
+
+import java.util.List;
+
+/**
+ * Search-based autopilot for attract mode and regression runs.
+ *
+ * Every tick it runs a beam search over flap/no-flap sequences using a copy of the
+ * Bird physics and the pipes currently known to the PipeManager, then queues a flap
+ * on the same InputQueue the keyboard uses. States that quantize to the same
+ * (y, velY) at a given depth are merged, and the search stops at a strict per-tick
+ * time budget, deciding from the deepest level reached.
+ *
+ * All search storage is preallocated; a decision allocates nothing.
+ */
+public class Autopilot {
+    private static final long BUDGET_NANOS = 500_000; // 0.5 ms per tick
+    private static final int HORIZON = 45;            // ticks of lookahead
+    private static final int BEAM_WIDTH = 32;
+    private static final int MAX_PIPES = 16;
+    private static final int COLLISION_PADDING = 20;  // same forgiving box as PipeManager's fallback
+    private static final int MEMO_SIZE = 256;         // power of two, > 2 * BEAM_WIDTH
+
+    // Current beam and next-level candidates (struct-of-arrays)
+    private final float[] beamY = new float[BEAM_WIDTH];
+    private final float[] beamVelY = new float[BEAM_WIDTH];
+    private final boolean[] beamFirstFlap = new boolean[BEAM_WIDTH];
+    private int beamSize;
+
+    // Hit box insets: the padded box, or the hull of every rotation mask for sprite birds
+    private int insetLeft;
+    private int insetTop;
+    private int insetRight;
+    private int insetBottom;
+
+    private final float[] nextY = new float[BEAM_WIDTH];
+    private final float[] nextVelY = new float[BEAM_WIDTH];
+    private final boolean[] nextFirstFlap = new boolean[BEAM_WIDTH];
+    private final float[] nextCost = new float[BEAM_WIDTH];
+    private int nextSize;
+
+    // Per-depth memo of visited (y, velY) states; stamps avoid clearing the table
+    private final long[] memoKeys = new long[MEMO_SIZE];
+    private final int[] memoStamps = new int[MEMO_SIZE];
+    private int memoStamp;
+
+    // Snapshot of the pipes at decision time
+    private final int[] pipeX = new int[MAX_PIPES];
+    private final int[] pipeTop = new int[MAX_PIPES];
+    private final int[] pipeBottom = new int[MAX_PIPES];
+    private int pipeCount;
+
+    private boolean enabled;
+    private long decisions;
+    private long budgetOverruns;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Decide for this tick and, if the bird should flap, queue it like a key press.
+     */
+    public void tick(Bird bird, PipeManager pipeManager, InputQueue inputQueue) {
+        if (enabled && decide(bird, pipeManager)) {
+            inputQueue.offer(InputQueue.FLAP, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Run the beam search from the bird's current state. Returns true to flap now.
+     */
+    public boolean decide(Bird bird, PipeManager pipeManager) {
+        long deadline = System.nanoTime() + BUDGET_NANOS;
+        decisions++;
+        snapshotPipes(pipeManager.getPipes());
+        int speed = pipeManager.getSpeed();
+
+        int birdX = bird.getX();
+        int width = bird.getWidth();
+        int height = bird.getHeight();
+        setInsets(bird.getCollisionMasks(), width, height);
+
+        beamSize = 1;
+        beamY[0] = bird.getExactY();
+        beamVelY[0] = bird.getVelY();
+        beamFirstFlap[0] = false;
+
+        boolean bestFlap = false;
+        for (int depth = 0; depth < HORIZON; depth++) {
+            int shift = (depth + 1) * speed;
+            memoStamp++;
+            nextSize = 0;
+
+            for (int i = 0; i < beamSize; i++) {
+                for (int action = 0; action < 2; action++) {
+                    boolean flap = action == 1;
+                    float velY = flap ? Constants.FLAP_IMPULSE : beamVelY[i];
+                    // Same integration as Bird.update()
+                    velY += Constants.GRAVITY;
+                    if (velY > Constants.TERMINAL_VELOCITY) {
+                        velY = Constants.TERMINAL_VELOCITY;
+                    }
+                    float y = beamY[i] + velY;
+
+                    if (collides(birdX, (int) y, width, height, shift) || !visit(y, velY)) {
+                        continue;
+                    }
+                    boolean firstFlap = depth == 0 ? flap : beamFirstFlap[i];
+                    offer(y, velY, firstFlap, cost(birdX, y, height, shift));
+                }
+            }
+
+            if (nextSize == 0) {
+                // Every continuation dies; keep the best guess from the previous level
+                break;
+            }
+            swapBeams();
+            bestFlap = beamFirstFlap[0];
+
+            if (System.nanoTime() > deadline) {
+                budgetOverruns++;
+                break;
+            }
+        }
+        return bestFlap;
+    }
+
+    public long getDecisions() {
+        return decisions;
+    }
+
+    /**
+     * Number of decisions that hit the time budget before reaching the full horizon.
+     */
+    public long getBudgetOverruns() {
+        return budgetOverruns;
+    }
+
+    private void snapshotPipes(List<Pipe> pipes) {
+        pipeCount = 0;
+        for (int i = 0; i < pipes.size() && pipeCount < MAX_PIPES; i++) {
+            Pipe pipe = pipes.get(i);
+            pipeX[pipeCount] = pipe.getX();
+            pipeTop[pipeCount] = pipe.getTopPipeBottom();
+            pipeBottom[pipeCount] = pipe.getBottomPipeTop();
+            pipeCount++;
+        }
+    }
+
+    /**
+     * The search does not track rotation, so for pixel-mask birds it uses the
+     * union of all rotation masks: never looser than the real check.
+     */
+    private void setInsets(CollisionMask[] masks, int width, int height) {
+        if (masks == null) {
+            insetLeft = insetTop = insetRight = insetBottom = COLLISION_PADDING;
+            return;
+        }
+        int left = Integer.MAX_VALUE, top = Integer.MAX_VALUE, right = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+        for (CollisionMask mask : masks) {
+            left = Math.min(left, mask.getOffsetX());
+            top = Math.min(top, mask.getOffsetY());
+            right = Math.max(right, mask.getOffsetX() + mask.getWidth());
+            bottom = Math.max(bottom, mask.getOffsetY() + mask.getHeight());
+        }
+        insetLeft = left;
+        insetTop = top;
+        insetRight = width - right;
+        insetBottom = height - bottom;
+    }
+
+    /**
+     * Mirror of PipeManager.checkCollision plus the ground and ceiling checks,
+     * with every known pipe moved left by shift pixels.
+     */
+    private boolean collides(int birdX, int birdY, int width, int height, int shift) {
+        int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+        if (birdY + height >= groundY || birdY < 0) {
+            return true;
+        }
+        int left = birdX + insetLeft;
+        int right = birdX + width - insetRight;
+        int top = birdY + insetTop;
+        int bottom = birdY + height - insetBottom;
+        for (int p = 0; p < pipeCount; p++) {
+            int x = pipeX[p] - shift;
+            if (right > x && left < x + Constants.PIPE_WIDTH) {
+                if (top < pipeTop[p] && bottom > 0) {
+                    return true;
+                }
+                if (bottom > pipeBottom[p] && top < groundY) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Heuristic: distance from the bird's centre to the centre of the next gap ahead.
+     */
+    private float cost(int birdX, float y, int height, int shift) {
+        float centre = y + height / 2f;
+        for (int p = 0; p < pipeCount; p++) {
+            if (pipeX[p] - shift + Constants.PIPE_WIDTH > birdX) {
+                return Math.abs(centre - (pipeTop[p] + pipeBottom[p]) / 2f);
+            }
+        }
+        return Math.abs(centre - (Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT) / 2f);
+    }
+
+    /**
+     * Returns false if an equivalent state was already expanded at this depth.
+     */
+    private boolean visit(float y, float velY) {
+        long key = ((long) Math.round(y * 2) << 32) | (Math.round(velY * 4) & 0xffffffffL);
+        int slot = (int) (key ^ (key >>> 29)) * 0x9E3779B9 >>> 24 & (MEMO_SIZE - 1);
+        while (memoStamps[slot] == memoStamp) {
+            if (memoKeys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & (MEMO_SIZE - 1);
+        }
+        memoStamps[slot] = memoStamp;
+        memoKeys[slot] = key;
+        return true;
+    }
+
+    /**
+     * Insert a candidate into the next beam, kept sorted by cost and capped at BEAM_WIDTH.
+     */
+    private void offer(float y, float velY, boolean firstFlap, float cost) {
+        int i;
+        if (nextSize < BEAM_WIDTH) {
+            i = nextSize++;
+        } else if (cost < nextCost[BEAM_WIDTH - 1]) {
+            i = BEAM_WIDTH - 1;
+        } else {
+            return;
+        }
+        while (i > 0 && nextCost[i - 1] > cost) {
+            nextY[i] = nextY[i - 1];
+            nextVelY[i] = nextVelY[i - 1];
+            nextFirstFlap[i] = nextFirstFlap[i - 1];
+            nextCost[i] = nextCost[i - 1];
+            i--;
+        }
+        nextY[i] = y;
+        nextVelY[i] = velY;
+        nextFirstFlap[i] = firstFlap;
+        nextCost[i] = cost;
+    }
+
+    private void swapBeams() {
+        System.arraycopy(nextY, 0, beamY, 0, nextSize);
+        System.arraycopy(nextVelY, 0, beamVelY, 0, nextSize);
+        System.arraycopy(nextFirstFlap, 0, beamFirstFlap, 0, nextSize);
+        beamSize = nextSize;
+    }
+}
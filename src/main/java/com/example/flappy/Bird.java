@@ -2,7 +2,6 @@ package com.example.flappy;
 
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.awt.geom.AffineTransform;
 
 /**
  * Bird entity with physics (gravity, velocity, flap mechanics).
@@ -15,10 +14,24 @@ public class Bird {
     private float rotation; // degrees
     private int displayWidth;
     private int displayHeight;
+    private CollisionMask[] masks; // one per rotation step, null for the padded-box fallback
+    private RotatedSprites frames; // pre-rotated sprite, built on first render
 
     public Bird(BufferedImage sprite) {
         this.sprite = sprite;
         calculateDisplaySize();
+        if (sprite != null && Boolean.parseBoolean(System.getProperty("flappy.pixelCollision", "true"))) {
+            masks = CollisionMask.forSprite(sprite, displayWidth, displayHeight);
+        }
+        reset();
+    }
+
+    /**
+     * Headless bird with an explicit collision size and no sprite.
+     */
+    public Bird(int displayWidth, int displayHeight) {
+        this.displayWidth = displayWidth;
+        this.displayHeight = displayHeight;
         reset();
     }
 
@@ -26,21 +39,20 @@ public class Bird {
      * Calculate display size maintaining aspect ratio from sprite.
      */
     private void calculateDisplaySize() {
-        if (sprite != null) {
-            int spriteWidth = sprite.getWidth();
-            int spriteHeight = sprite.getHeight();
-            if (spriteWidth > 0 && spriteHeight > 0) {
-                // Calculate height to maintain aspect ratio
-                displayWidth = Constants.BIRD_DISPLAY_WIDTH;
-                displayHeight = (int) ((float) spriteHeight / spriteWidth * Constants.BIRD_DISPLAY_WIDTH);
-            } else {
-                displayWidth = Constants.BIRD_DISPLAY_WIDTH;
-                displayHeight = Constants.BIRD_DISPLAY_WIDTH;
-            }
-        } else {
-            displayWidth = Constants.BIRD_DISPLAY_WIDTH;
-            displayHeight = Constants.BIRD_DISPLAY_WIDTH;
+        displayWidth = Constants.BIRD_DISPLAY_WIDTH;
+        displayHeight = displayHeight(sprite);
+    }
+
+    /**
+     * Height a bird with this sprite is drawn at: BIRD_DISPLAY_WIDTH wide with
+     * the sprite's aspect ratio, or square without a usable sprite.
+     */
+    public static int displayHeight(BufferedImage sprite) {
+        if (sprite != null && sprite.getWidth() > 0 && sprite.getHeight() > 0) {
+            // Calculate height to maintain aspect ratio
+            return (int) ((float) sprite.getHeight() / sprite.getWidth() * Constants.BIRD_DISPLAY_WIDTH);
         }
+        return Constants.BIRD_DISPLAY_WIDTH;
     }
 
     /**
@@ -53,6 +65,15 @@ public class Bird {
         this.rotation = 0;
     }
 
+    /**
+     * Put the bird back into a captured physics state (rewind, rollback).
+     */
+    public void restore(float y, float velY, float rotation) {
+        this.y = y;
+        this.velY = velY;
+        this.rotation = rotation;
+    }
+
     /**
      * Apply flap impulse (jump).
      */
@@ -84,25 +105,16 @@ public class Bird {
     }
 
     /**
-     * Render the bird with rotation.
+     * Render the bird with rotation, as one blit of the pre-rotated frame
+     * (no transform changes, so nothing is allocated per frame).
      */
     public void render(Graphics2D g) {
         if (sprite == null) return;
 
-        AffineTransform oldTransform = g.getTransform();
-        
-        // Translate to bird center, rotate, then translate back
-        int centerX = (int) x + displayWidth / 2;
-        int centerY = (int) y + displayHeight / 2;
-        
-        g.translate(centerX, centerY);
-        g.rotate(Math.toRadians(rotation));
-        g.translate(-centerX, -centerY);
-        
-        // Draw maintaining aspect ratio
-        g.drawImage(sprite, (int) x, (int) y, displayWidth, displayHeight, null);
-        
-        g.setTransform(oldTransform);
+        if (frames == null) {
+            frames = RotatedSprites.forSprite(g.getDeviceConfiguration(), sprite, displayWidth, displayHeight);
+        }
+        frames.draw(g, (int) x, (int) y, rotation);
     }
 
     /**
@@ -116,6 +128,13 @@ public class Bird {
         return (int) y;
     }
 
+    /**
+     * Unrounded vertical position, for simulations that mirror the physics.
+     */
+    public float getExactY() {
+        return y;
+    }
+
     public int getWidth() {
         return displayWidth;
     }
@@ -127,5 +146,24 @@ public class Bird {
     public float getVelY() {
         return velY;
     }
+
+    public float getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Masks for every rotation step, or null when the padded box is used.
+     */
+    public CollisionMask[] getCollisionMasks() {
+        return masks;
+    }
+
+    /**
+     * Pixel mask for the current rotation, or null if this bird has no sprite
+     * (headless) or pixel collision is turned off.
+     */
+    public CollisionMask getCollisionMask() {
+        return masks != null ? masks[CollisionMask.indexFor(rotation)] : null;
+    }
 }
 
@@ -0,0 +1,330 @@
+package com.example.flappy;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Instant-replay recorder for gameplay highlights.
+ *
+ * The render thread copies each captured frame (downscaled to the capture size)
+ * into a preallocated ring of pixel buffers: no allocation, no locks, no waiting.
+ * A background encoder thread drains the ring, compresses frames (XOR against the
+ * previous frame, then deflate) and keeps the last N seconds in memory. Saving a
+ * replay writes that window to disk through a FileChannel. If the encoder falls
+ * more than a ring's worth behind, the overwritten frames are counted as dropped.
+ *
+ * Enabled with -Dflappy.recorder=true; capture size, rate and window are set with
+ * flappy.recorder.width / .height / .fps / .seconds (defaults 480x270, 30 fps, 30 s).
+ *
+ * Replay file (.fbr, big-endian):
+ *   "FBRC" u32 version, u32 width, u32 height, u32 fps, u32 frameCount,
+ *   then per frame: u8 keyframe, u32 length, deflated RGB bytes (XOR previous frame unless keyframe)
+ *
+ * Convert a replay to a PNG sequence with:
+ *   java -cp flappy.jar com.example.flappy.ClipRecorder replay.fbr outputDir
+ */
+public class ClipRecorder {
+    private static final int MAGIC = 0x46425243; // "FBRC"
+    private static final int VERSION = 1;
+    private static final int RING_SLOTS = 32;
+    private static final long IN_PROGRESS = -1;
+
+    private final int width;
+    private final int height;
+    private final int fps;
+    private final int captureInterval; // render frames per captured frame
+    private final int windowFrames;
+    private final Path outputDir;
+
+    // Ring written by the render thread
+    private final BufferedImage[] slots = new BufferedImage[RING_SLOTS];
+    private final Graphics2D[] slotGraphics = new Graphics2D[RING_SLOTS];
+    private final AtomicLongArray slotSequence = new AtomicLongArray(RING_SLOTS);
+    private final AtomicLong published = new AtomicLong(-1);
+    private long nextSequence;
+    private int framesSinceCapture;
+
+    // Encoder state (encoder thread only)
+    private final ArrayDeque<byte[]> encoded = new ArrayDeque<>();
+    private final ArrayDeque<Boolean> keyframes = new ArrayDeque<>();
+    private final int[] current;
+    private final byte[] rgb;
+    private final byte[] previousRgb;
+    private final byte[] deflateBuffer;
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private long framesSinceKeyframe;
+
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicBoolean saveRequested = new AtomicBoolean();
+    private volatile boolean running = true;
+    private final Thread encoder;
+
+    public ClipRecorder(int width, int height, int fps, int seconds, Path outputDir) {
+        this.width = width;
+        this.height = height;
+        this.fps = Math.max(1, Math.min(fps, Constants.TARGET_FPS));
+        this.captureInterval = Math.max(1, Constants.TARGET_FPS / this.fps);
+        this.windowFrames = this.fps * seconds;
+        this.outputDir = outputDir;
+
+        for (int i = 0; i < RING_SLOTS; i++) {
+            slots[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            slotGraphics[i] = slots[i].createGraphics();
+            slotGraphics[i].setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            slotSequence.set(i, IN_PROGRESS);
+        }
+        current = new int[width * height];
+        rgb = new byte[width * height * 3];
+        previousRgb = new byte[rgb.length];
+        deflateBuffer = new byte[rgb.length + rgb.length / 100 + 64];
+
+        encoder = new Thread(this::encodeLoop, "ClipRecorder-Encoder");
+        encoder.setDaemon(true);
+        encoder.setPriority(Thread.MIN_PRIORITY);
+        encoder.start();
+    }
+
+    /**
+     * Recorder configured from system properties, or null if flappy.recorder is not set.
+     */
+    public static ClipRecorder fromSystemProperties() {
+        if (!Boolean.getBoolean("flappy.recorder")) {
+            return null;
+        }
+        return new ClipRecorder(
+                Integer.getInteger("flappy.recorder.width", 480),
+                Integer.getInteger("flappy.recorder.height", 270),
+                Integer.getInteger("flappy.recorder.fps", 30),
+                Integer.getInteger("flappy.recorder.seconds", 30),
+                Paths.get(System.getProperty("user.home"), Constants.HIGH_SCORE_DIR, "replays"));
+    }
+
+    /**
+     * Called by the render thread once per presented frame with the finished frame.
+     * Every captureInterval-th frame is scaled into the next ring slot.
+     */
+    public void capture(BufferedImage frame) {
+        if (++framesSinceCapture < captureInterval) {
+            return;
+        }
+        framesSinceCapture = 0;
+
+        long sequence = nextSequence++;
+        int slot = (int) (sequence % RING_SLOTS);
+        // Mark in progress so the encoder can tell a torn read from a good one
+        slotSequence.set(slot, IN_PROGRESS);
+        slotGraphics[slot].drawImage(frame, 0, 0, width, height, null);
+        slotSequence.set(slot, sequence);
+        published.lazySet(sequence);
+    }
+
+    /**
+     * Ask the encoder to write the buffered window to disk. Returns immediately.
+     */
+    public void saveReplay() {
+        saveRequested.set(true);
+        LockSupport.unpark(encoder);
+    }
+
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    /**
+     * Stop the encoder thread and release the slot graphics.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(encoder);
+        try {
+            encoder.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Graphics2D g : slotGraphics) {
+            g.dispose();
+        }
+        deflater.end();
+        if (droppedFrames.get() > 0) {
+            System.out.println("Clip recorder dropped " + droppedFrames.get() + " frames");
+        }
+    }
+
+    private void encodeLoop() {
+        long readSequence = 0;
+        while (running) {
+            if (saveRequested.getAndSet(false)) {
+                writeReplay();
+            }
+            long newest = published.get();
+            if (readSequence > newest) {
+                LockSupport.parkNanos(1_000_000_000L / fps / 2);
+                continue;
+            }
+            // Anything older than one ring behind the writer has been overwritten
+            long oldestAvailable = newest - RING_SLOTS + 1;
+            if (readSequence < oldestAvailable) {
+                droppedFrames.addAndGet(oldestAvailable - readSequence);
+                readSequence = oldestAvailable;
+                framesSinceKeyframe = Long.MAX_VALUE / 2; // force a keyframe after a gap
+            }
+
+            int slot = (int) (readSequence % RING_SLOTS);
+            int[] pixels = ((DataBufferInt) slots[slot].getRaster().getDataBuffer()).getData();
+            if (slotSequence.get(slot) != readSequence) {
+                droppedFrames.incrementAndGet();
+                readSequence++;
+                continue;
+            }
+            System.arraycopy(pixels, 0, current, 0, current.length);
+            if (slotSequence.get(slot) != readSequence) {
+                // Overwritten while copying
+                droppedFrames.incrementAndGet();
+                readSequence++;
+                framesSinceKeyframe = Long.MAX_VALUE / 2;
+                continue;
+            }
+            encode();
+            readSequence++;
+        }
+    }
+
+    /**
+     * Compress the current frame into the in-memory window, dropping whole
+     * seconds from the front so the window always starts on a keyframe.
+     */
+    private void encode() {
+        for (int i = 0, j = 0; i < current.length; i++) {
+            int p = current[i];
+            rgb[j++] = (byte) (p >> 16);
+            rgb[j++] = (byte) (p >> 8);
+            rgb[j++] = (byte) p;
+        }
+
+        boolean keyframe = framesSinceKeyframe >= fps;
+        deflater.reset();
+        if (keyframe) {
+            deflater.setInput(rgb);
+            framesSinceKeyframe = 0;
+        } else {
+            for (int i = 0; i < rgb.length; i++) {
+                previousRgb[i] ^= rgb[i];
+            }
+            deflater.setInput(previousRgb);
+        }
+        deflater.finish();
+        int length = deflater.deflate(deflateBuffer);
+        byte[] data = new byte[length];
+        System.arraycopy(deflateBuffer, 0, data, 0, length);
+        System.arraycopy(rgb, 0, previousRgb, 0, rgb.length);
+        framesSinceKeyframe++;
+
+        encoded.addLast(data);
+        keyframes.addLast(keyframe);
+        while (encoded.size() > windowFrames + fps) {
+            encoded.removeFirst();
+            keyframes.removeFirst();
+            while (!keyframes.isEmpty() && !keyframes.peekFirst()) {
+                encoded.removeFirst();
+                keyframes.removeFirst();
+            }
+        }
+    }
+
+    private void writeReplay() {
+        if (encoded.isEmpty()) {
+            return;
+        }
+        Path file = outputDir.resolve("replay-" + System.currentTimeMillis() + ".fbr");
+        ByteBuffer header = ByteBuffer.allocateDirect(24);
+        ByteBuffer frameHeader = ByteBuffer.allocateDirect(5);
+        try {
+            Files.createDirectories(outputDir);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(fps).putInt(encoded.size()).flip();
+                writeFully(channel, header);
+                Iterator<Boolean> key = keyframes.iterator();
+                for (byte[] data : encoded) {
+                    frameHeader.clear();
+                    frameHeader.put((byte) (key.next() ? 1 : 0)).putInt(data.length).flip();
+                    writeFully(channel, frameHeader);
+                    writeFully(channel, ByteBuffer.wrap(data));
+                }
+            }
+            System.out.println("Saved replay " + file + " (" + encoded.size() + " frames, "
+                    + droppedFrames.get() + " dropped so far)");
+        } catch (IOException e) {
+            System.err.println("Failed to save replay: " + e.getMessage());
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Decode a replay file into a numbered PNG sequence.
+     */
+    public static void main(String[] args) throws IOException, DataFormatException {
+        if (args.length != 2) {
+            System.err.println("Usage: ClipRecorder <replay.fbr> <outputDir>");
+            System.exit(2);
+        }
+        Path outDir = Paths.get(args[1]);
+        Files.createDirectories(outDir);
+        try (FileChannel channel = FileChannel.open(Paths.get(args[0]), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a replay file: " + args[0]);
+            }
+            int w = buffer.getInt();
+            int h = buffer.getInt();
+            buffer.getInt(); // fps
+            int count = buffer.getInt();
+
+            byte[] pixels = new byte[w * h * 3];
+            byte[] delta = new byte[pixels.length];
+            Inflater inflater = new Inflater();
+            BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            for (int f = 0; f < count; f++) {
+                boolean keyframe = buffer.get() != 0;
+                byte[] data = new byte[buffer.getInt()];
+                buffer.get(data);
+                inflater.reset();
+                inflater.setInput(data);
+                inflater.inflate(delta);
+                for (int i = 0; i < pixels.length; i++) {
+                    pixels[i] = keyframe ? delta[i] : (byte) (pixels[i] ^ delta[i]);
+                }
+                for (int i = 0, j = 0; i < w * h; i++, j += 3) {
+                    image.setRGB(i % w, i / w, (pixels[j] & 0xff) << 16 | (pixels[j + 1] & 0xff) << 8 | (pixels[j + 2] & 0xff));
+                }
+                ImageIO.write(image, "PNG", new File(outDir.toFile(), String.format("frame%05d.png", f)));
+            }
+            inflater.end();
+            System.out.println("Wrote " + count + " frames to " + outDir);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.flappy;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Pixel-exact collision shape of a bird sprite at one rotation.
+ *
+ * The sprite is drawn at display size with the same rotation Bird.render uses,
+ * cropped to its opaque pixels, and packed one bit per pixel into long[] rows.
+ * Bird rotation only ever takes ROTATION_SPEED steps between -MAX_ROTATION and
+ * +MAX_ROTATION, so one mask per step covers every pose. Masks are built once
+ * per skin and shared.
+ *
+ * A pipe is wider than any bird, so the part of a mask it covers almost always
+ * touches two of the mask's edges (say the top and the left). Each mask keeps
+ * the topmost and bottommost pixel of every column as prefix and suffix
+ * min/max arrays, which answers those queries in O(1) unless the rectangle
+ * lies strictly between the two; only then are the rows tested.
+ */
+public class CollisionMask {
+    private static final int ALPHA_THRESHOLD = 128;
+    public static final int ROTATION_STEPS =
+            Math.round(2 * Constants.MAX_ROTATION_DEGREES / Constants.ROTATION_SPEED) + 1;
+
+    private static final Map<BufferedImage, CollisionMask[]> cache = new IdentityHashMap<>();
+
+    private final int offsetX;  // mask origin relative to the bird's x, y
+    private final int offsetY;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] rows;  // row r occupies rows[r * wordsPerRow ...], bit x % 64 of word x / 64
+    private final int[] filledBefore; // filledBefore[r] = number of non-empty rows above row r
+    private final int[] topLeft;      // topLeft[c] = topmost pixel row in columns [0, c), height if none
+    private final int[] topRight;     // topRight[c] = topmost pixel row in columns [c, width)
+    private final int[] bottomLeft;   // bottomLeft[c] = bottommost pixel row in columns [0, c), -1 if none
+    private final int[] bottomRight;  // bottomRight[c] = bottommost pixel row in columns [c, width)
+
+    private CollisionMask(int offsetX, int offsetY, int width, int height, long[] rows, int wordsPerRow) {
+        this.offsetX = offsetX;
+        this.offsetY = offsetY;
+        this.width = width;
+        this.height = height;
+        this.rows = rows;
+        this.wordsPerRow = wordsPerRow;
+        this.filledBefore = new int[height + 1];
+        for (int r = 0; r < height; r++) {
+            boolean filled = false;
+            for (int w = 0; w < wordsPerRow; w++) {
+                filled |= rows[r * wordsPerRow + w] != 0;
+            }
+            filledBefore[r + 1] = filledBefore[r] + (filled ? 1 : 0);
+        }
+
+        int[] columnTop = new int[width];
+        int[] columnBottom = new int[width];
+        for (int c = 0; c < width; c++) {
+            columnTop[c] = height;
+            columnBottom[c] = -1;
+            for (int r = 0; r < height; r++) {
+                if ((rows[r * wordsPerRow + (c >>> 6)] & (1L << c)) != 0) {
+                    columnTop[c] = Math.min(columnTop[c], r);
+                    columnBottom[c] = r;
+                }
+            }
+        }
+        this.topLeft = new int[width + 1];
+        this.topRight = new int[width + 1];
+        this.bottomLeft = new int[width + 1];
+        this.bottomRight = new int[width + 1];
+        topLeft[0] = topRight[width] = height;
+        bottomLeft[0] = bottomRight[width] = -1;
+        for (int c = 0; c < width; c++) {
+            topLeft[c + 1] = Math.min(topLeft[c], columnTop[c]);
+            bottomLeft[c + 1] = Math.max(bottomLeft[c], columnBottom[c]);
+            int d = width - 1 - c;
+            topRight[d] = Math.min(topRight[d + 1], columnTop[d]);
+            bottomRight[d] = Math.max(bottomRight[d + 1], columnBottom[d]);
+        }
+    }
+
+    /**
+     * Masks for every rotation step of a sprite drawn at the given display size.
+     */
+    public static synchronized CollisionMask[] forSprite(BufferedImage sprite, int displayWidth, int displayHeight) {
+        CollisionMask[] masks = cache.get(sprite);
+        if (masks == null) {
+            masks = new CollisionMask[ROTATION_STEPS];
+            for (int i = 0; i < ROTATION_STEPS; i++) {
+                float degrees = -Constants.MAX_ROTATION_DEGREES + i * Constants.ROTATION_SPEED;
+                masks[i] = build(sprite, displayWidth, displayHeight, degrees);
+            }
+            cache.put(sprite, masks);
+        }
+        return masks;
+    }
+
+    /**
+     * Index of the mask for a rotation in degrees.
+     */
+    public static int indexFor(float rotation) {
+        int index = Math.round((rotation + Constants.MAX_ROTATION_DEGREES) / Constants.ROTATION_SPEED);
+        return Math.max(0, Math.min(ROTATION_STEPS - 1, index));
+    }
+
+    private static CollisionMask build(BufferedImage sprite, int displayWidth, int displayHeight, float degrees) {
+        // Square canvas big enough for any rotation, bird centre at its centre
+        int size = (int) Math.ceil(Math.hypot(displayWidth, displayHeight)) + 2;
+        BufferedImage canvas = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = canvas.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.translate(size / 2, size / 2);
+        g.rotate(Math.toRadians(degrees));
+        g.translate(-displayWidth / 2, -displayHeight / 2);
+        g.drawImage(sprite, 0, 0, displayWidth, displayHeight, null);
+        g.dispose();
+
+        int minX = size, minY = size, maxX = -1, maxY = -1;
+        int[] argb = canvas.getRGB(0, 0, size, size, null, 0, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if ((argb[y * size + x] >>> 24) >= ALPHA_THRESHOLD) {
+                    minX = Math.min(minX, x);
+                    maxX = Math.max(maxX, x);
+                    minY = Math.min(minY, y);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+        }
+        if (maxX < 0) {
+            return new CollisionMask(0, 0, 0, 0, new long[0], 0);
+        }
+
+        int width = maxX - minX + 1;
+        int height = maxY - minY + 1;
+        int wordsPerRow = (width + 63) >>> 6;
+        long[] rows = new long[height * wordsPerRow];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if ((argb[(minY + y) * size + minX + x] >>> 24) >= ALPHA_THRESHOLD) {
+                    rows[y * wordsPerRow + (x >>> 6)] |= 1L << x;
+                }
+            }
+        }
+        // Canvas centre sits at the bird's centre (x + w/2, y + h/2), as in Bird.render
+        return new CollisionMask(minX - size / 2 + displayWidth / 2, minY - size / 2 + displayHeight / 2,
+                width, height, rows, wordsPerRow);
+    }
+
+    /**
+     * Whether any mask pixel lies in the rectangle [colFrom, colTo) x [rowFrom, rowTo),
+     * given in mask coordinates. Each row is tested word by word with a range mask.
+     */
+    public boolean intersects(int colFrom, int colTo, int rowFrom, int rowTo) {
+        colFrom = Math.max(colFrom, 0);
+        colTo = Math.min(colTo, width);
+        rowFrom = Math.max(rowFrom, 0);
+        rowTo = Math.min(rowTo, height);
+        if (colFrom >= colTo || rowFrom >= rowTo) {
+            return false;
+        }
+        if (colFrom == 0 && colTo == width) {
+            // Span covers the whole mask width (a pipe is wider than a bird): any pixel in the rows will do
+            return filledBefore[rowTo] != filledBefore[rowFrom];
+        }
+        if (colFrom == 0 || colTo == width) {
+            // Span touches a side of the mask: the topmost and bottommost pixels in it are one lookup each
+            int top = colFrom == 0 ? topLeft[colTo] : topRight[colFrom];
+            int bottom = colFrom == 0 ? bottomLeft[colTo] : bottomRight[colFrom];
+            if (top >= rowTo || bottom < rowFrom) {
+                return false;
+            }
+            if (top >= rowFrom || bottom < rowTo) {
+                return true;
+            }
+        }
+        int firstWord = colFrom >>> 6;
+        int lastWord = (colTo - 1) >>> 6;
+        long firstMask = -1L << colFrom;
+        long lastMask = -1L >>> (63 - ((colTo - 1) & 63));
+        if (firstWord == lastWord) {
+            long span = firstMask & lastMask;
+            for (int r = rowFrom, i = rowFrom * wordsPerRow + firstWord; r < rowTo; r++, i += wordsPerRow) {
+                if ((rows[i] & span) != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int r = rowFrom; r < rowTo; r++) {
+            int base = r * wordsPerRow;
+            if ((rows[base + firstWord] & firstMask) != 0 || (rows[base + lastWord] & lastMask) != 0) {
+                return true;
+            }
+            for (int w = firstWord + 1; w < lastWord; w++) {
+                if (rows[base + w] != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public int getOffsetX() {
+        return offsetX;
+    }
+
+    public int getOffsetY() {
+        return offsetY;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Benchmark: time PipeManager.checkCollision with pixel masks against the
+     * padded box, for each bundled skin at random heights and rotations next
+     * to a pipe (random poses, so branch prediction can't learn the answers).
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.CollisionMask
+     */
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(1);
+        int poses = 1024;
+        float[] ys = new float[poses];
+        float[] rotations = new float[poses];
+        for (int rounds = 0; rounds < 3; rounds++) { // the last round is reported, after warm-up
+            for (int skin = 1; skin <= 3; skin++) {
+                BufferedImage sprite = AssetLoader.loadImage("/images/bird" + skin + ".png");
+                Bird masked = new Bird(sprite);
+                Bird boxed = new Bird(masked.getWidth(), masked.getHeight());
+                PipeManager pipes = new PipeManager(null, null);
+                pipes.reset(skin);
+                for (int i = 0; i < Constants.PIPE_SPAWN_INTERVAL * 4; i++) {
+                    pipes.update();
+                }
+                int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+                for (int i = 0; i < poses; i++) {
+                    ys[i] = random.nextInt(0, groundY - masked.getHeight());
+                    rotations[i] = random.nextInt(-CollisionMask.ROTATION_STEPS / 2, CollisionMask.ROTATION_STEPS / 2 + 1)
+                            * Constants.ROTATION_SPEED;
+                }
+
+                int checks = 5_000_000;
+                int maskHits = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < checks; i++) {
+                    masked.restore(ys[i & (poses - 1)], 0, rotations[i & (poses - 1)]);
+                    if (pipes.checkCollision(masked)) {
+                        maskHits++;
+                    }
+                }
+                long maskNanos = System.nanoTime() - start;
+                int boxHits = 0;
+                start = System.nanoTime();
+                for (int i = 0; i < checks; i++) {
+                    boxed.restore(ys[i & (poses - 1)], 0, rotations[i & (poses - 1)]);
+                    if (pipes.checkCollision(boxed)) {
+                        boxHits++;
+                    }
+                }
+                long boxNanos = System.nanoTime() - start;
+                if (rounds == 2) {
+                    System.out.printf("bird%d (%dx%d): mask %.1f ns/check (%.0f%% hits), padded box %.1f ns/check (%.0f%% hits)%n",
+                            skin, masked.getWidth(), masked.getHeight(),
+                            (double) maskNanos / checks, 100.0 * maskHits / checks,
+                            (double) boxNanos / checks, 100.0 * boxHits / checks);
+                }
+            }
+        }
+    }
+}
@@ -44,5 +44,6 @@ public final class Constants {
     // High score file
     public static final String HIGH_SCORE_DIR = ".flappybird";
     public static final String HIGH_SCORE_FILE = "highscore.txt";
+    public static final String INPUT_LATENCY_FILE = "input-latency.txt";
 }
 
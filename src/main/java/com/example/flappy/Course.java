@@ -0,0 +1,307 @@
+package com.example.flappy;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A hand-authored pipe course read straight from a memory-mapped file.
+ *
+ * Only a window of WINDOW_PIPES records is mapped at a time and PipeManager
+ * reads each record just before it spawns the pipe, so a course of any length
+ * costs the same memory: one small mapping and the pipes on screen.
+ *
+ * File format (little-endian): "FBCS" u32 version, i32 pipeCount, i32 reserved,
+ * then per pipe u16 spacing (pixels scrolled since the previous pipe spawned,
+ * or since the run started), u16 gapY (gap centre), u16 gapHeight, u8 speed
+ * (pixels per tick from this pipe on, 0 = unchanged) and u8 reserved.
+ */
+public class Course implements Closeable {
+    private static final int MAGIC = 0x53434246; // "FBCS" read little-endian
+    private static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int RECORD_BYTES = 8;
+    public static final String EXTENSION = ".fbcourse";
+    private static final int WINDOW_PIPES = 8192; // 64 KB mapped at a time
+
+    private final FileChannel channel;
+    private final int size;
+    private MappedByteBuffer window;
+    private int windowStart = -1; // first pipe in the mapped window
+    private long hash; // 0 until first computed
+
+    private Course(FileChannel channel, int size) {
+        this.channel = channel;
+        this.size = size;
+    }
+
+    public static Course open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a course file");
+            }
+            int size = header.getInt();
+            if (size <= 0 || channel.size() < HEADER_BYTES + (long) size * RECORD_BYTES) {
+                throw new IOException("Course file is empty or truncated");
+            }
+            return new Course(channel, size);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Course named by flappy.course (path to a course file), or null when not set or unreadable.
+     */
+    public static Course fromSystemProperties() {
+        String path = System.getProperty("flappy.course");
+        if (path == null) {
+            return null;
+        }
+        try {
+            Course course = open(Paths.get(path));
+            System.out.println("Loaded course " + path + " (" + course.size() + " pipes)");
+            return course;
+        } catch (IOException e) {
+            System.err.println("Failed to load course " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int spacing(int pipe) {
+        int at = offset(pipe); // maps the window first
+        return window.getShort(at) & 0xFFFF;
+    }
+
+    public int gapY(int pipe) {
+        int at = offset(pipe);
+        return window.getShort(at + 2) & 0xFFFF;
+    }
+
+    public int gapHeight(int pipe) {
+        int at = offset(pipe);
+        return window.getShort(at + 4) & 0xFFFF;
+    }
+
+    /**
+     * Pipe speed from this pipe on, or 0 to keep the current one.
+     */
+    public int speed(int pipe) {
+        int at = offset(pipe);
+        return window.get(at + 6) & 0xFF;
+    }
+
+    /**
+     * 64-bit hash of every pipe record, naming the course in run recordings.
+     * Computed on first use with positional reads that leave the mapped window
+     * alone; never 0, which recordings use for random pipes.
+     */
+    public long hash() {
+        if (hash != 0) {
+            return hash;
+        }
+        long h = 0xCBF29CE484222325L; // FNV-1a
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        long position = HEADER_BYTES;
+        long end = HEADER_BYTES + (long) size * RECORD_BYTES;
+        try {
+            while (position < end) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Course file is truncated");
+                }
+                for (int i = 0; i < read; i++) {
+                    h = (h ^ (buffer.get(i) & 0xFF)) * 0x100000001B3L;
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read course: " + e.getMessage(), e);
+        }
+        hash = h != 0 ? h : 1;
+        return hash;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Byte offset of a pipe's record in the window, mapping the window that holds it if needed.
+     */
+    private int offset(int pipe) {
+        if (pipe < windowStart || pipe >= windowStart + WINDOW_PIPES || window == null) {
+            int start = pipe - pipe % WINDOW_PIPES;
+            int count = Math.min(WINDOW_PIPES, size - start);
+            try {
+                window = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_BYTES + (long) start * RECORD_BYTES, (long) count * RECORD_BYTES);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to map course: " + e.getMessage(), e);
+            }
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            windowStart = start;
+        }
+        return (pipe - windowStart) * RECORD_BYTES;
+    }
+
+    /**
+     * Convert a CSV course (one "spacing,gapY,gapHeight[,speed]" line per pipe;
+     * blank lines, # comments and a header line are skipped) to a course file,
+     * streaming so the CSV may be any length. Pipes the bird can't reach from
+     * the previous gap in time (see FlightEnvelope) are kept but reported.
+     *
+     * @return the number of pipes written
+     */
+    public static int convert(Path csv, Path out) throws IOException {
+        int count = 0;
+        int lineNumber = 0;
+        int unreachable = 0;
+        int speed = Constants.PIPE_SPEED;
+        int previousGapY = 0;
+        int previousGapHeight = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0); // count patched in at the end
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || (count == 0 && !Character.isDigit(line.charAt(0)))) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length < 3 || fields.length > 4) {
+                    throw new IOException("Line " + lineNumber + ": expected spacing,gapY,gapHeight[,speed]");
+                }
+                int spacing = field(fields, 0, 1, 65535, lineNumber);
+                int gapHeight = field(fields, 2, 1, Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT, lineNumber);
+                // The whole gap has to lie between the ceiling and the ground
+                int gapY = field(fields, 1, gapHeight / 2,
+                        Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT - gapHeight / 2, lineNumber);
+                int newSpeed = fields.length == 4 && !fields[3].isBlank() ? field(fields, 3, 1, 255, lineNumber) : 0;
+                int freeTicks = FlightEnvelope.freeTicks(spacing, speed);
+                if (count > 0 && !FlightEnvelope.isReachable(previousGapY, previousGapHeight, gapY, gapHeight,
+                        freeTicks, FlightEnvelope.BIRD_HEIGHT)) {
+                    if (unreachable++ < 10) {
+                        System.err.println("Line " + lineNumber + ": gap at " + gapY + " can't be reached from "
+                                + previousGapY + (freeTicks > 0 ? " in " + freeTicks + " ticks" : " inside both pipes"));
+                    }
+                }
+                speed = newSpeed != 0 ? newSpeed : speed;
+                previousGapY = gapY;
+                previousGapHeight = gapHeight;
+                if (buffer.remaining() < RECORD_BYTES) {
+                    buffer.flip();
+                    writeFully(channel, buffer);
+                    buffer.clear();
+                }
+                buffer.putShort((short) spacing).putShort((short) gapY).putShort((short) gapHeight)
+                        .put((byte) newSpeed).put((byte) 0);
+                count++;
+            }
+            if (count == 0) {
+                throw new IOException("No pipes in " + csv);
+            }
+            buffer.flip();
+            writeFully(channel, buffer);
+            ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, count);
+            channel.write(size, 8);
+        }
+        if (unreachable > 0) {
+            System.err.println(unreachable + " pipes can't be reached from the one before");
+        }
+        return count;
+    }
+
+    private static int field(String[] fields, int index, int min, int max, int lineNumber) throws IOException {
+        try {
+            int value = Integer.parseInt(fields[index].trim());
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IOException("Line " + lineNumber + ": field " + (index + 1) + " must be " + min + "-" + max
+                + ", got \"" + fields[index].trim() + "\"");
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Course tools:
+     *   convert in.csv out.fbcourse   build a course file from CSV
+     *   stream course.fbcourse        scroll a headless PipeManager through the whole course,
+     *                                 reporting pipes per second and heap use along the way
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.Course convert|stream ...
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("convert")) {
+            int pipes = convert(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.println("Wrote " + pipes + " pipes to " + args[2] + " (" + Files.size(Paths.get(args[2])) + " bytes)");
+        } else if (args.length == 2 && args[0].equals("stream")) {
+            try (Course course = open(Paths.get(args[1]))) {
+                PipeManager pipes = new PipeManager(null, null);
+                pipes.setCourse(course);
+                pipes.reset();
+                long length = 0;
+                for (int i = 0; i < course.size(); i++) {
+                    length += course.spacing(i);
+                }
+                Runtime runtime = Runtime.getRuntime();
+                long peakHeap = 0;
+                long ticks = 0;
+                long scrolled = 0;
+                int maxOnScreen = 0;
+                long start = System.nanoTime();
+                // Until the last pipe has spawned
+                while (scrolled < length) {
+                    int speed = pipes.getSpeed();
+                    pipes.update();
+                    scrolled += speed;
+                    maxOnScreen = Math.max(maxOnScreen, pipes.getPipes().size());
+                    if (++ticks % 1_000_000 == 0) {
+                        peakHeap = Math.max(peakHeap, runtime.totalMemory() - runtime.freeMemory());
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%d pipes in %d ticks (%.1f hours at %d fps): %.0f pipes/s, at most %d on screen, peak heap %.1f MB%n",
+                        course.size(), ticks, ticks / (double) Constants.TARGET_FPS / 3600, Constants.TARGET_FPS,
+                        course.size() / seconds, maxOnScreen, peakHeap / 1e6);
+            }
+        } else {
+            System.err.println("Usage: Course convert in.csv out" + EXTENSION + " | Course stream course" + EXTENSION);
+            System.exit(2);
+        }
+    }
+}
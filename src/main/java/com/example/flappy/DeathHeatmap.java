@@ -0,0 +1,350 @@
+package com.example.flappy;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Where birds die, counted across any number of runs and threads.
+ *
+ * Each pipe hit adds one to a cell of a COLUMNS x ROWS grid of CELL-pixel
+ * cells placed around the pipe: the pipe's left edge at the centre column,
+ * its gap centre at the centre row. Every death, pipe, ground or ceiling,
+ * also counts the bird's vertical velocity in a histogram per cause.
+ *
+ * Counters are split into STRIPES copies of AtomicLongArray; a thread only
+ * increments its own stripe, so recording is lock-free and threads rarely
+ * share a cache line. Readers sum the stripes.
+ *
+ * File format (big-endian): "FBDH" u32 version, i32 columns, i32 rows,
+ * i32 cell, i32 causes, i32 velocityBins, then every grid count and every
+ * velocity count as an unsigned LEB128 varint (most cells are zero, one byte).
+ */
+public class DeathHeatmap {
+    private static final int MAGIC = 0x46424448; // "FBDH"
+    private static final int VERSION = 1;
+    public static final int CELL = 8;
+    public static final int COLUMNS = 80;  // 640 px around the pipe
+    public static final int ROWS = 90;     // 720 px around the gap centre
+    public static final int PIPE = 0;
+    public static final int GROUND = 1;
+    public static final int CEILING = 2;
+    public static final int CAUSES = 3;
+    public static final int VELOCITY_BINS = 21; // 1 px/tick each, FLAP_IMPULSE to TERMINAL_VELOCITY
+    private static final int STRIPES = 8;
+    private static final String[] CAUSE_NAMES = {"pipe", "ground", "ceiling"};
+
+    private final AtomicLongArray[] cells = new AtomicLongArray[STRIPES];
+    private final AtomicLongArray[] velocities = new AtomicLongArray[STRIPES];
+    private final AtomicLong[] totals = new AtomicLong[STRIPES];
+
+    // Overlay cache, render thread only
+    private BufferedImage overlay;
+    private long overlayTotal = -1;
+
+    public DeathHeatmap() {
+        for (int i = 0; i < STRIPES; i++) {
+            cells[i] = new AtomicLongArray(COLUMNS * ROWS);
+            velocities[i] = new AtomicLongArray(CAUSES * VELOCITY_BINS);
+            totals[i] = new AtomicLong();
+        }
+    }
+
+    public static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), Constants.HIGH_SCORE_DIR, "deaths.bin");
+    }
+
+    /**
+     * Where bot runs go by default, apart from the live deaths shown by the overlay.
+     */
+    public static Path botFile() {
+        return Paths.get(System.getProperty("user.home"), Constants.HIGH_SCORE_DIR, "deaths-bot.bin");
+    }
+
+    /**
+     * Count the death of the bird in a world that has just died.
+     */
+    public void record(GameWorld world) {
+        Bird bird = world.getBird();
+        PipeManager pipes = world.getPipeManager();
+        int cause;
+        // Same order as GameWorld.step: a pipe hit wins over the ground
+        if (pipes.checkCollision(bird)) {
+            cause = PIPE;
+        } else if (bird.getY() < 0) {
+            cause = CEILING;
+        } else {
+            cause = GROUND;
+        }
+        Pipe pipe = world.nextPipe(); // the one overlapping the bird, on a pipe hit
+        int dx = pipe != null ? bird.getX() + bird.getWidth() / 2 - pipe.getX() : 0;
+        int dy = pipe != null ? bird.getY() + bird.getHeight() / 2 - pipe.getGapY() : 0;
+        record(dx, dy, bird.getVelY(), cause);
+    }
+
+    /**
+     * Count a death falling at velY; for a pipe hit, with the bird's centre at
+     * (dx, dy) from the pipe's left edge and gap centre.
+     */
+    public void record(int dx, int dy, float velY, int cause) {
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        int column = Math.floorDiv(dx, CELL) + COLUMNS / 2;
+        int row = Math.floorDiv(dy, CELL) + ROWS / 2;
+        if (cause == PIPE && column >= 0 && column < COLUMNS && row >= 0 && row < ROWS) {
+            cells[stripe].getAndIncrement(row * COLUMNS + column);
+        }
+        int bin = Math.max(0, Math.min(VELOCITY_BINS - 1, Math.round(velY - Constants.FLAP_IMPULSE)));
+        velocities[stripe].getAndIncrement(cause * VELOCITY_BINS + bin);
+        totals[stripe].getAndIncrement();
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (AtomicLong stripe : totals) {
+            total += stripe.get();
+        }
+        return total;
+    }
+
+    public long getCount(int column, int row) {
+        return sum(cells, row * COLUMNS + column);
+    }
+
+    public long getVelocityCount(int cause, int bin) {
+        return sum(velocities, cause * VELOCITY_BINS + bin);
+    }
+
+    private static long sum(AtomicLongArray[] stripes, int index) {
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            total += stripe.get(index);
+        }
+        return total;
+    }
+
+    /**
+     * Draw the heatmap around a pipe. The translucent image is only rebuilt
+     * once the number of deaths has grown by a twentieth since the last build.
+     */
+    public void render(Graphics2D g, Pipe pipe) {
+        long total = getTotal();
+        if (total == 0) {
+            return;
+        }
+        if (overlay == null || total - overlayTotal > Math.max(1, overlayTotal / 20)) {
+            rebuildOverlay();
+            overlayTotal = total;
+        }
+        int x = pipe.getX() - COLUMNS / 2 * CELL;
+        int y = pipe.getGapY() - ROWS / 2 * CELL;
+        Object interpolation = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(overlay, x, y, COLUMNS * CELL, ROWS * CELL, null);
+        if (interpolation != null) {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+    }
+
+    /**
+     * One pixel per cell, from clear blue (few deaths) to opaque red (the most),
+     * on a log scale so rare spots still show.
+     */
+    private void rebuildOverlay() {
+        if (overlay == null) {
+            overlay = new BufferedImage(COLUMNS, ROWS, BufferedImage.TYPE_INT_ARGB);
+        }
+        long max = 1;
+        for (int i = 0; i < COLUMNS * ROWS; i++) {
+            max = Math.max(max, sum(cells, i));
+        }
+        double scale = 1.0 / Math.log1p(max);
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                long count = getCount(column, row);
+                int argb = 0;
+                if (count > 0) {
+                    double heat = Math.log1p(count) * scale;
+                    int alpha = (int) (60 + 150 * heat);
+                    int red = (int) (255 * heat);
+                    int blue = 255 - red;
+                    argb = alpha << 24 | red << 16 | (int) (80 * (1 - Math.abs(2 * heat - 1))) << 8 | blue;
+                }
+                overlay.setRGB(column, row, argb);
+            }
+        }
+    }
+
+    /**
+     * Add the counts saved in a file; a missing file adds nothing.
+     */
+    public void load(Path file) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != COLUMNS || in.readInt() != ROWS
+                    || in.readInt() != CELL || in.readInt() != CAUSES || in.readInt() != VELOCITY_BINS) {
+                throw new IOException("not a death heatmap of this layout");
+            }
+            long total = 0;
+            for (int i = 0; i < COLUMNS * ROWS; i++) {
+                cells[0].addAndGet(i, readVarLong(in));
+            }
+            for (int i = 0; i < CAUSES * VELOCITY_BINS; i++) {
+                long count = readVarLong(in);
+                velocities[0].addAndGet(i, count);
+                total += count; // every death has exactly one velocity
+            }
+            totals[0].addAndGet(total);
+        } catch (IOException e) {
+            System.err.println("Failed to load death heatmap " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write every count, replacing the file atomically.
+     */
+    public void save(Path file) {
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(COLUMNS);
+                out.writeInt(ROWS);
+                out.writeInt(CELL);
+                out.writeInt(CAUSES);
+                out.writeInt(VELOCITY_BINS);
+                for (int i = 0; i < COLUMNS * ROWS; i++) {
+                    writeVarLong(out, sum(cells, i));
+                }
+                for (int i = 0; i < CAUSES * VELOCITY_BINS; i++) {
+                    writeVarLong(out, sum(velocities, i));
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to save death heatmap: " + e.getMessage());
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("varint too long");
+    }
+
+    public String summary() {
+        long total = getTotal();
+        StringBuilder text = new StringBuilder("Death heatmap: " + total + " deaths");
+        for (int cause = 0; cause < CAUSES; cause++) {
+            long count = 0;
+            double velocity = 0;
+            for (int bin = 0; bin < VELOCITY_BINS; bin++) {
+                long n = getVelocityCount(cause, bin);
+                count += n;
+                velocity += n * (bin + Constants.FLAP_IMPULSE);
+            }
+            if (count > 0) {
+                text.append(String.format(", %s %.1f%% (mean velocity %.1f)", CAUSE_NAMES[cause],
+                        100.0 * count / total, velocity / count));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Headless bot runs on every core, all recording into one heatmap that is
+     * then merged into the file (default ~/.flappybird/deaths-bot.bin, kept
+     * apart from live play). The bot aims for each gap's centre with a random error.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.DeathHeatmap [runs] [threads] [file]
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long runs = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Path file = args.length > 2 ? Paths.get(args[2]) : botFile();
+
+        DeathHeatmap heatmap = new DeathHeatmap();
+        AtomicLong ticks = new AtomicLong();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int w = 0; w < threads; w++) {
+            long share = runs / threads + (w < runs % threads ? 1 : 0);
+            long seed = w;
+            workers[w] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                GameWorld[] worlds = new GameWorld[GameWorld.SKINS];
+                for (int i = 0; i < worlds.length; i++) {
+                    worlds[i] = GameWorld.forSkin(i);
+                }
+                long played = 0;
+                for (long r = 0; r < share; r++) {
+                    GameWorld world = worlds[(int) (r % worlds.length)];
+                    Bird bird = world.getBird();
+                    world.reset(random.nextLong());
+                    int aim = 0;
+                    while (!world.isDead()) {
+                        if (world.getTick() % 30 == 0) {
+                            aim = random.nextInt(-120, 121);
+                        }
+                        Pipe next = world.nextPipe();
+                        int target = (next != null ? next.getGapY() : Constants.BIRD_START_Y) + aim;
+                        world.step(bird.getVelY() > 0 && bird.getY() + bird.getHeight() / 2 > target);
+                    }
+                    heatmap.record(world);
+                    played += world.getTick();
+                }
+                ticks.addAndGet(played);
+            }, "Heatmap-Sim-" + w);
+            workers[w].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d runs on %d threads in %.1f s: %.0f runs/s, %.1f M ticks/s%n",
+                runs, threads, seconds, runs / seconds, ticks.get() / seconds / 1e6);
+        System.out.println(heatmap.summary());
+
+        heatmap.load(file);
+        heatmap.save(file);
+        System.out.println("Merged into " + file + " (" + heatmap.getTotal() + " deaths, "
+                + fileSize(file) + " bytes)");
+    }
+
+    private static long fileSize(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
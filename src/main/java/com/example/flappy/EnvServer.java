@@ -0,0 +1,307 @@
+package com.example.flappy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.Iterator;
+
+/**
+ * Gym-style environment server for driving headless games from outside the JVM.
+ *
+ * One non-blocking NIO selector thread serves every client over TCP or a Unix
+ * domain socket. Each connection owns its own array of GameWorld environments.
+ * All messages are little-endian binary; observations are written straight into
+ * the connection's direct output buffer.
+ *
+ * Requests (first byte is the opcode):
+ *   CREATE      1  u32 count                      -> u32 count
+ *   RESET       2  u32 env, i64 seed              -> 1 observation
+ *   STEP        3  u32 env, u8 action             -> 1 observation
+ *   BATCH_STEP  4  u32 count, count x u8 action   -> count observations (envs 0..count-1)
+ *   BATCH_RESET 5  u32 count, i64 baseSeed        -> count observations (env i seeded baseSeed + i)
+ *
+ * Observation (24 bytes):
+ *   f32 birdY, f32 velY, f32 nextPipeX, f32 nextGapY, f32 reward, u8 done, u8 events, u16 reserved
+ *
+ * Rewards: +0.1 per tick survived, +1 per pipe passed, -1 on death. Stepping a
+ * finished environment returns done=1 and reward 0 until it is reset.
+ *
+ * Every environment flies the server's skin (default bird1) at display size
+ * with its pixel masks, as in live play.
+ *
+ * Usage: java -cp flappy.jar com.example.flappy.EnvServer [host:port | unix:/path/to.sock] [skin 1-3]
+ */
+public class EnvServer {
+    public static final int OP_CREATE = 1;
+    public static final int OP_RESET = 2;
+    public static final int OP_STEP = 3;
+    public static final int OP_BATCH_STEP = 4;
+    public static final int OP_BATCH_RESET = 5;
+
+    public static final int OBSERVATION_BYTES = 24;
+    private static final int MAX_ENVS = 32768;
+    private static final int BUFFER_BYTES = 1 << 20; // fits a full batch of observations
+    private static final float TICK_REWARD = 0.1f;
+    private static final float POINT_REWARD = 1.0f;
+    private static final float DEATH_REWARD = -1.0f;
+
+    private final SocketAddress address;
+    private final int skin;
+    private long steps;
+
+    /**
+     * @param skin skin every environment flies (0-2)
+     */
+    public EnvServer(SocketAddress address, int skin) {
+        this.address = address;
+        this.skin = skin;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String target = args.length > 0 ? args[0] : "127.0.0.1:5555";
+        int skin = args.length > 1 ? Integer.parseInt(args[1]) - 1 : 0;
+        new EnvServer(parseAddress(target), skin).run();
+    }
+
+    static SocketAddress parseAddress(String target) {
+        if (target.startsWith("unix:")) {
+            return UnixDomainSocketAddress.of(target.substring(5));
+        }
+        int colon = target.lastIndexOf(':');
+        return new InetSocketAddress(target.substring(0, colon), Integer.parseInt(target.substring(colon + 1)));
+    }
+
+    /**
+     * Accept clients and serve requests until the process is killed.
+     */
+    public void run() throws IOException {
+        boolean unix = address instanceof UnixDomainSocketAddress;
+        if (unix) {
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+        }
+        try (Selector selector = Selector.open();
+             ServerSocketChannel server = unix
+                     ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                     : ServerSocketChannel.open()) {
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            System.out.println("Env server listening on " + address);
+
+            long reportAt = System.nanoTime() + 5_000_000_000L;
+            long reportedSteps = 0;
+            while (true) {
+                selector.select(1000);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (key.isAcceptable()) {
+                            accept(server, selector);
+                        } else {
+                            serve(key);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Env client dropped: " + e.getMessage());
+                        key.cancel();
+                        key.channel().close();
+                    }
+                }
+                long now = System.nanoTime();
+                if (now >= reportAt) {
+                    System.out.printf("%.0f steps/s%n", (steps - reportedSteps) / 5.0);
+                    reportedSteps = steps;
+                    reportAt = now + 5_000_000_000L;
+                }
+            }
+        } finally {
+            if (unix) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            }
+        }
+    }
+
+    private void accept(ServerSocketChannel server, Selector selector) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        if (!(channel.getLocalAddress() instanceof UnixDomainSocketAddress)) {
+            channel.socket().setTcpNoDelay(true);
+        }
+        channel.register(selector, SelectionKey.OP_READ, new Connection(skin));
+    }
+
+    /**
+     * Read what is available, execute every complete request that fits in the
+     * output buffer, and flush. Interest switches to OP_WRITE while output is pending.
+     */
+    private void serve(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection conn = (Connection) key.attachment();
+
+        if (key.isReadable() && channel.read(conn.in) < 0) {
+            throw new IOException("closed by peer");
+        }
+
+        conn.in.flip();
+        while (conn.in.hasRemaining() && handle(conn)) {
+            // keep going while whole requests are buffered and output fits
+        }
+        conn.in.compact();
+
+        conn.out.flip();
+        channel.write(conn.out);
+        boolean pending = conn.out.hasRemaining();
+        conn.out.compact();
+        key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    /**
+     * Execute one buffered request. Returns false if it is incomplete or its
+     * response does not fit yet, leaving the input untouched.
+     */
+    private boolean handle(Connection conn) {
+        ByteBuffer in = conn.in;
+        ByteBuffer out = conn.out;
+        int start = in.position();
+        int op = in.get(start);
+        int available = in.remaining();
+
+        switch (op) {
+            case OP_CREATE: {
+                if (available < 5 || out.remaining() < 4) return false;
+                in.get();
+                int count = in.getInt();
+                conn.create(count);
+                out.putInt(conn.worlds.length);
+                return true;
+            }
+            case OP_RESET: {
+                if (available < 13 || out.remaining() < OBSERVATION_BYTES) return false;
+                in.get();
+                int env = in.getInt();
+                long seed = in.getLong();
+                checkEnv(conn, env);
+                conn.worlds[env].reset(seed);
+                writeObservation(out, conn.worlds[env], 0f, 0);
+                return true;
+            }
+            case OP_STEP: {
+                if (available < 6 || out.remaining() < OBSERVATION_BYTES) return false;
+                in.get();
+                int env = in.getInt();
+                checkEnv(conn, env);
+                step(out, conn.worlds[env], in.get() != 0);
+                return true;
+            }
+            case OP_BATCH_STEP: {
+                if (available < 5) return false;
+                int count = in.getInt(start + 1);
+                checkCount(conn, count);
+                if (available < 5 + count || out.remaining() < count * OBSERVATION_BYTES) return false;
+                in.position(start + 5);
+                GameWorld[] worlds = conn.worlds;
+                for (int i = 0; i < count; i++) {
+                    step(out, worlds[i], in.get() != 0);
+                }
+                return true;
+            }
+            case OP_BATCH_RESET: {
+                if (available < 13) return false;
+                int count = in.getInt(start + 1);
+                checkCount(conn, count);
+                if (out.remaining() < count * OBSERVATION_BYTES) return false;
+                in.position(start + 5);
+                long baseSeed = in.getLong();
+                for (int i = 0; i < count; i++) {
+                    conn.worlds[i].reset(baseSeed + i);
+                    writeObservation(out, conn.worlds[i], 0f, 0);
+                }
+                return true;
+            }
+            default:
+                throw new IllegalStateException("Unknown opcode " + op);
+        }
+    }
+
+    private static void checkCount(Connection conn, int count) {
+        if (count < 0 || count > conn.worlds.length) {
+            throw new IllegalStateException("Batch of " + count + " with " + conn.worlds.length + " envs");
+        }
+    }
+
+    private static void checkEnv(Connection conn, int env) {
+        if (env < 0 || env >= conn.worlds.length) {
+            throw new IllegalStateException("Env " + env + " outside 0.." + (conn.worlds.length - 1));
+        }
+    }
+
+    private void step(ByteBuffer out, GameWorld world, boolean flap) {
+        if (world.isDead()) {
+            writeObservation(out, world, 0f, 0);
+            return;
+        }
+        int events = world.step(flap);
+        float reward = TICK_REWARD;
+        if ((events & GameWorld.POINT) != 0) {
+            reward += POINT_REWARD;
+        }
+        if ((events & GameWorld.DIED) != 0) {
+            reward = DEATH_REWARD;
+        }
+        steps++;
+        writeObservation(out, world, reward, events);
+    }
+
+    private static void writeObservation(ByteBuffer out, GameWorld world, float reward, int events) {
+        Bird bird = world.getBird();
+        Pipe next = world.nextPipe();
+        out.putFloat(bird.getExactY());
+        out.putFloat(bird.getVelY());
+        out.putFloat(next != null ? next.getX() : Constants.WINDOW_WIDTH);
+        out.putFloat(next != null ? next.getGapY() : (Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT) / 2f);
+        out.putFloat(reward);
+        out.put((byte) (world.isDead() ? 1 : 0));
+        out.put((byte) events);
+        out.putShort((short) 0);
+    }
+
+    /**
+     * Per-client state: direct I/O buffers and the client's environments.
+     */
+    private static final class Connection {
+        final ByteBuffer in = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        final int skin;
+        GameWorld[] worlds = new GameWorld[0];
+
+        Connection(int skin) {
+            this.skin = skin;
+        }
+
+        /**
+         * Replace this client's environments with count fresh ones.
+         */
+        void create(int count) {
+            if (count < 1 || count > MAX_ENVS) {
+                throw new IllegalStateException("Env count " + count + " outside 1.." + MAX_ENVS);
+            }
+            worlds = new GameWorld[count];
+            for (int i = 0; i < count; i++) {
+                worlds[i] = GameWorld.forSkin(skin);
+            }
+        }
+    }
+}
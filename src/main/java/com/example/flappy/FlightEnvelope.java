@@ -0,0 +1,157 @@
+package com.example.flappy;
+
+import java.util.List;
+
+/**
+ * How far the bird can climb or drop in a given number of ticks, tabulated
+ * once from Bird's own physics, so pipe generation can tell in O(1) whether a
+ * gap can be reached from the one before it.
+ *
+ * The table starts from a level bird (velocity 0), as it is when it levels
+ * out to pass through a gap: RISE[t] is the climb after t ticks of flapping
+ * every tick, FALL[t] the drop after t ticks without flapping. A gap is
+ * reachable when some bird position inside the previous gap and some inside
+ * the new one are at most that far apart, for the ticks the bird flies free
+ * between leaving the previous pipe and entering the new one (freeTicks).
+ * With no free ticks the bird is inside both pipes at once, and the gaps
+ * must overlap by at least its height.
+ */
+public final class FlightEnvelope {
+    public static final int MAX_TICKS = 1024; // longer intervals use the last entry
+    public static final int BIRD_HEIGHT = GameWorld.tallestBirdHeight(); // every gap has to fit it
+
+    private static final float[] RISE = new float[MAX_TICKS + 1];
+    private static final float[] FALL = new float[MAX_TICKS + 1];
+
+    static {
+        Bird climbing = new Bird(Constants.BIRD_DISPLAY_WIDTH, Constants.BIRD_DISPLAY_WIDTH);
+        Bird falling = new Bird(Constants.BIRD_DISPLAY_WIDTH, Constants.BIRD_DISPLAY_WIDTH);
+        climbing.restore(0, 0, 0);
+        falling.restore(0, 0, 0);
+        for (int t = 1; t <= MAX_TICKS; t++) {
+            climbing.flap();
+            climbing.update();
+            falling.update();
+            RISE[t] = -climbing.getExactY();
+            FALL[t] = falling.getExactY();
+        }
+    }
+
+    private FlightEnvelope() {}
+
+    /**
+     * Ticks between the bird's tail leaving one pipe and its beak entering the
+     * next, for pipes spacing pixels apart moving speed pixels per tick. Zero
+     * or less when the bird is inside both at once.
+     */
+    public static int freeTicks(int spacing, int speed) {
+        return (spacing - Constants.PIPE_WIDTH - Constants.BIRD_DISPLAY_WIDTH) / Math.max(1, speed);
+    }
+
+    public static float rise(int ticks) {
+        return RISE[Math.min(Math.max(ticks, 0), MAX_TICKS)];
+    }
+
+    public static float fall(int ticks) {
+        return FALL[Math.min(Math.max(ticks, 0), MAX_TICKS)];
+    }
+
+    /**
+     * Smallest gap centre reachable from the previous gap: the bird's top at
+     * the top of the new gap, at most rise(ticks) above its lowest spot in
+     * the previous one.
+     */
+    public static int highestGapY(int fromGapY, int fromGapHeight, int gapHeight, int ticks, int birdHeight) {
+        return (int) Math.ceil(fromGapY - fromGapHeight / 2 - gapHeight / 2 + birdHeight - rise(ticks));
+    }
+
+    /**
+     * Largest gap centre reachable from the previous gap: the bird's bottom at
+     * the bottom of the new gap, at most fall(ticks) below its highest spot in
+     * the previous one.
+     */
+    public static int lowestGapY(int fromGapY, int fromGapHeight, int gapHeight, int ticks, int birdHeight) {
+        return (int) Math.floor(fromGapY + fromGapHeight / 2 + gapHeight / 2 - birdHeight + fall(ticks));
+    }
+
+    public static boolean isReachable(int fromGapY, int fromGapHeight, int gapY, int gapHeight, int ticks, int birdHeight) {
+        return gapHeight > birdHeight
+                && gapY >= highestGapY(fromGapY, fromGapHeight, gapHeight, ticks, birdHeight)
+                && gapY <= lowestGapY(fromGapY, fromGapHeight, gapHeight, ticks, birdHeight);
+    }
+
+    /**
+     * Print the envelope, then for several pipe speeds, gap heights and spawn
+     * intervals, how often a random gap has to be drawn again and what a
+     * pipe update costs with the check. Where the bird has no free ticks
+     * between pipes, also checks that every pair of consecutive gaps overlaps
+     * by at least BIRD_HEIGHT, and exits with status 1 if any doesn't.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.FlightEnvelope [pipes]
+     */
+    public static void main(String[] args) {
+        int pipesPerSetting = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int[][] settings = {
+                // speed, gap height, spawn interval (ticks)
+                {Constants.PIPE_SPEED, Constants.PIPE_GAP_HEIGHT, Constants.PIPE_SPAWN_INTERVAL},
+                {8, 260, 40},
+                {12, 220, 24},
+                {14, 200, 18},
+        };
+        System.out.println("bird height " + BIRD_HEIGHT);
+        System.out.println("ticks   rise   fall");
+        for (int t : new int[] {10, 20, 30, 45, 60, 90}) {
+            System.out.printf("%5d %6.1f %6.1f%n", t, rise(t), fall(t));
+        }
+        long unsurvivable = 0;
+        for (int[] setting : settings) {
+            PipeManager pipes = new PipeManager(null, null);
+            pipes.setDifficulty(setting[0], setting[1], setting[2]);
+            pipes.reset(1);
+            for (int i = 0; i < 20_000; i++) {
+                pipes.update(); // warm-up
+            }
+            pipes.reset(2);
+            long resamplesBefore = pipes.getResamples();
+            long ticks = (long) pipesPerSetting * setting[2];
+            long start = System.nanoTime();
+            for (long t = 0; t < ticks; t++) {
+                pipes.update();
+            }
+            double nanos = System.nanoTime() - start;
+            int free = freeTicks(setting[2] * setting[0], setting[0]);
+            System.out.printf("speed %2d, gap %3d, every %2d ticks (%d free): %.2f redraws per pipe, %.0f ns per tick%n",
+                    setting[0], setting[1], setting[2], free,
+                    (double) (pipes.getResamples() - resamplesBefore) / pipesPerSetting, nanos / ticks);
+            if (free <= 0) {
+                long bad = countUnsurvivable(pipes, setting[1], ticks);
+                System.out.printf("  %d of %d consecutive gaps overlap by less than the bird%n", bad, pipesPerSetting);
+                unsurvivable += bad;
+            }
+        }
+        if (unsurvivable > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generate pipes for the given ticks and count the pipes whose gap centre
+     * is more than gapHeight - BIRD_HEIGHT from the previous one's.
+     */
+    private static long countUnsurvivable(PipeManager pipes, int gapHeight, long ticks) {
+        pipes.reset(3);
+        long bad = 0;
+        for (long t = 0; t < ticks; t++) {
+            pipes.update();
+            List<Pipe> live = pipes.getPipes();
+            if (pipes.getSpawnTimer() == 0 && live.size() >= 2) {
+                int from = live.get(live.size() - 2).getGapY();
+                int to = live.get(live.size() - 1).getGapY();
+                if (Math.abs(to - from) > gapHeight - BIRD_HEIGHT) {
+                    bad++;
+                }
+            }
+        }
+        return bad;
+    }
+}
@@ -14,7 +14,7 @@ public class GameFrame extends JFrame {
     private GamePanel gamePanel;
 
     public GameFrame() {
-        setTitle("Flappy Bird (Pure Java)");
+        setTitle(System.getProperty("flappy.spectate") != null ? "Flappy Bird (Spectator)" : "Flappy Bird (Pure Java)");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setResizable(true); // Allow resizing for maximize
         
@@ -34,6 +34,7 @@ public class GameFrame extends JFrame {
         addWindowListener(new WindowAdapter() {
             @Override
             public void windowOpened(WindowEvent e) {
+                StartupProbe.mark("frame-visible");
                 // Update Constants with actual window dimensions (accounts for taskbar)
                 Dimension windowSize = getContentPane().getSize();
                 Constants.WINDOW_WIDTH = windowSize.width;
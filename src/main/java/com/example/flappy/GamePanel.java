@@ -1,19 +1,32 @@
 package com.example.flappy;
 
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Window;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.event.WindowEvent;
+import javax.swing.KeyStroke;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Main game panel handling game loop, rendering, input, and game logic.
@@ -22,15 +35,110 @@ public class GamePanel extends JPanel {
     private GameState state;
     private Bird bird;
     private PipeManager pipeManager;
-    private BufferedImage background;
-    private BufferedImage ground;
-    private int score;
+    private GameWorld world;
+    private StaticLayer staticLayer;
+    private RenderScaler renderScaler;
+    private final Consumer<Graphics2D> sceneRenderer = this::renderScene;
     private int highScore;
+    private int savedHighScore; // written at game over and exit, not on every point
     private Timer gameTimer;
     private SelectionPanel selectionPanel;
     private boolean playAgainHover = false;
     private boolean quitHover = false;
 
+    // HUD and overlay resources are created once; the frame path allocates nothing
+    private static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 48);
+    private static final Font LABEL_FONT = new Font("Arial", Font.BOLD, 18);
+    private static final Font HINT_FONT = new Font("Arial", Font.PLAIN, 18);
+    private static final Font RESULT_FONT = new Font("Arial", Font.PLAIN, 24);
+    private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 20);
+    private static final Font SMALL_FONT = new Font("Arial", Font.PLAIN, 14);
+    private static final Color PAUSE_SHADE = new Color(0, 0, 0, 150);
+    private static final Color GAME_OVER_SHADE = new Color(0, 0, 0, 180);
+    private static final Color PLAY_AGAIN = new Color(0, 150, 0);
+    private static final Color PLAY_AGAIN_HOVER = new Color(0, 200, 0);
+    private static final Color QUIT = new Color(150, 0, 0);
+    private static final Color QUIT_HOVER = new Color(200, 0, 0);
+    private final HudText scoreText = new HudText(SCORE_FONT, Color.WHITE, Color.BLACK);
+    private final HudText labelText = new HudText(LABEL_FONT, Color.WHITE, null);
+    private String gameOverScoreText = "";
+    private String gameOverBestText = "";
+
+    // Input is queued with its event timestamp and applied at the start of a tick
+    private final InputQueue inputQueue = new InputQueue();
+    private final LatencyHistogram inputLatency = new LatencyHistogram("Input-to-present latency");
+    private final long[] unpresentedInputs = new long[64]; // timestamps applied but not yet painted
+    private int unpresentedCount;
+
+    // Autopilot plays through the same input queue; attract mode turns it on and auto-restarts
+    private final Autopilot autopilot = new Autopilot();
+    private final boolean attractMode = Boolean.getBoolean("flappy.autopilot");
+    private boolean autopilotFlew; // the bot flew part of this run, so it sets no high score and saves no ghost
+
+    // Optional instant-replay recorder (null unless flappy.recorder=true)
+    private final ClipRecorder clipRecorder = ClipRecorder.fromSystemProperties();
+
+    // Practice mode (flappy.practice=true): every tick goes into a rewind buffer; hold Backspace to scrub back
+    private final boolean practiceMode = Boolean.getBoolean("flappy.practice");
+    private final int rewindSeconds = Integer.getInteger("flappy.rewindSeconds", 10);
+    private RewindBuffer rewind; // null unless practicing single-player without ghosts
+    private boolean rewinding;
+    private boolean practiceFlew; // run played with rewind on, so it sets no high score and posts no death
+
+    // Flap, score and crash effects
+    private final ParticleSystem particles = ParticleSystem.fromSystemProperties();
+
+    // Ghost racing: flappy.ghosts = off (default) | best | all; runs use the daily course seed
+    private final String ghostMode = System.getProperty("flappy.ghosts", "off").trim().toLowerCase();
+    private List<RunRecording> ghostRuns; // today's finished runs, null when ghosts are off
+    private RunRecording currentRun;
+    private GhostBatch ghosts;
+    private long courseSeed;
+
+    // Party mode: flappy.party = number of local players (2-8), keys from flappy.partyKeys
+    private static final String DEFAULT_PARTY_KEYS = "SPACE,UP,Z,M,W,O,F,J";
+    private static final Font PARTY_FONT = new Font("Arial", Font.BOLD, 22);
+    private static final Font PARTY_TAG_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Color[] PLAYER_COLORS = {
+            new Color(255, 255, 255), new Color(255, 210, 60), new Color(90, 200, 255), new Color(255, 110, 110),
+            new Color(140, 240, 120), new Color(230, 140, 255), new Color(255, 160, 60), new Color(170, 170, 170)};
+    private static final Color DEAD_PLAYER = new Color(120, 120, 120);
+    private final int partyPlayers = Math.min(PartyWorld.MAX_PLAYERS, Integer.getInteger("flappy.party", 0));
+    private final int[] partyKeys = parsePartyKeys(System.getProperty("flappy.partyKeys", DEFAULT_PARTY_KEYS));
+    private PartyWorld party;
+    private static final String[] PLAYER_TAGS = {"P1", "P2", "P3", "P4", "P5", "P6", "P7", "P8"};
+    private static final String[] PLAYER_LABELS = {"P1  ", "P2  ", "P3  ", "P4  ", "P5  ", "P6  ", "P7  ", "P8  "};
+    private final HudText[] partyScoreText = playerTexts(PARTY_FONT, Color.BLACK);
+    private final HudText[] partyTagText = playerTexts(PARTY_TAG_FONT, null);
+    private final HudText deadScoreText = new HudText(PARTY_FONT, DEAD_PLAYER, Color.BLACK);
+
+    // Hand-authored course (flappy.course=file), streamed into the pipes in place of random ones
+    private final Course course = Course.fromSystemProperties();
+
+    // Hard modes: faster pipes, smaller gaps, shorter intervals; random gaps stay reachable (see FlightEnvelope)
+    private final int pipeSpeed = Integer.getInteger("flappy.pipeSpeed", Constants.PIPE_SPEED);
+    private final int pipeGap = Integer.getInteger("flappy.pipeGap", Constants.PIPE_GAP_HEIGHT);
+    private final int pipeInterval = Integer.getInteger("flappy.pipeInterval", Constants.PIPE_SPAWN_INTERVAL);
+
+    // Versus mode: flappy.versus = 1 or 2, racing another cabinet over UDP (see VersusSession)
+    private final VersusSession versus = VersusSession.fromSystemProperties();
+    private GameWorld remoteWorld; // the other cabinet's bird, as simulated here
+    private BufferedImage pipeTop;
+    private BufferedImage pipeBottom;
+
+    // Spectator streaming: flappy.broadcast publishes every tick; flappy.spectate=host:port watches one
+    private final SpectatorBroadcast broadcast = SpectatorBroadcast.fromSystemProperties();
+    private final SpectatorClient spectator = SpectatorClient.fromSystemProperties();
+    private int spectatedSkin = -1;
+
+    // Death heatmap: every single-player or versus death is counted; H overlays it around the next pipe
+    private final DeathHeatmap deathHeatmap = new DeathHeatmap();
+    private long heatmapSaved;
+    private boolean showHeatmap;
+
+    // Venue leaderboard (flappy.leaderboard=host:port): runs are posted there instead of the local high score file
+    private final LeaderboardClient leaderboard = LeaderboardClient.fromSystemProperties();
+
     public GamePanel() {
         setDoubleBuffered(true);
         setBackground(Color.BLACK);
@@ -39,21 +147,46 @@ public class GamePanel extends JPanel {
         setLayout(null); // Use null layout for absolute positioning
         
         state = GameState.SELECT;
-        score = 0;
         highScore = HighScoreStore.loadHighScore();
+        savedHighScore = highScore;
+        deathHeatmap.load(DeathHeatmap.defaultFile());
+        heatmapSaved = deathHeatmap.getTotal();
+        if (leaderboard != null) {
+            // "Best" is the venue's best today once the server answers
+            leaderboard.fetchBest(best -> SwingUtilities.invokeLater(() -> highScore = Math.max(highScore, best)));
+        }
+        renderScaler = RenderScaler.fromSystemProperties();
+        renderScaler.setAlwaysBuffer(clipRecorder != null);
         
         loadAssets();
         setupSelectionPanel();
         setupInputHandlers();
+
+        if (spectator != null) {
+            SwingUtilities.invokeLater(this::startSpectating);
+        } else if (StartupProbe.isEnabled()) {
+            // Startup measurement: go straight to gameplay with the default skin
+            SwingUtilities.invokeLater(this::startGame);
+        }
     }
 
     private void loadAssets() {
-        background = AssetLoader.loadImage("/images/background.png");
-        ground = AssetLoader.loadImage("/images/ground.png");
+        BufferedImage background = AssetLoader.loadImage("/images/background.png");
+        BufferedImage ground = AssetLoader.loadImage("/images/ground.png");
+        staticLayer = new StaticLayer(background, ground);
         
-        BufferedImage pipeTop = AssetLoader.loadImage("/images/pipe_top.png");
-        BufferedImage pipeBottom = AssetLoader.loadImage("/images/pipe_bottom.png");
+        pipeTop = AssetLoader.loadImage("/images/pipe_top.png");
+        pipeBottom = AssetLoader.loadImage("/images/pipe_bottom.png");
         pipeManager = new PipeManager(pipeTop, pipeBottom);
+        pipeManager.setCourse(course);
+        pipeManager.setDifficulty(pipeSpeed, pipeGap, pipeInterval);
+
+        RenderQuality quality = RenderQuality.fromSystemProperties();
+        if (quality != null) {
+            RenderQuality.setCurrent(quality);
+        } else {
+            startQualityProbe(background, ground, pipeTop, pipeBottom);
+        }
 
         // Pre-load sounds
         SoundPlayer.loadSound("flap", "/sounds/flap.wav");
@@ -63,6 +196,38 @@ public class GamePanel extends JPanel {
         SoundPlayer.loadSound("audiobackground", "/sounds/audiobackground.wav"); // Background music
     }
 
+    /**
+     * Pick a render quality preset in the background by timing a representative
+     * gameplay frame offscreen, while the player is on the selection screen.
+     */
+    private void startQualityProbe(BufferedImage background, BufferedImage ground,
+                                   BufferedImage pipeTop, BufferedImage pipeBottom) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return;
+        }
+        Thread probe = new Thread(() -> {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            StaticLayer probeLayer = new StaticLayer(background, ground);
+            PipeManager probePipes = new PipeManager(pipeTop, pipeBottom);
+            for (int i = 0; i < Constants.PIPE_SPAWN_INTERVAL * 3; i++) {
+                probePipes.update();
+            }
+            Bird probeBird = new Bird(AssetLoader.loadImage("/images/bird1.png"));
+
+            RenderQuality chosen = RenderQuality.selfTest(gc, Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT, g -> {
+                probeLayer.render(g, 0);
+                probePipes.render(g);
+                probeBird.update();
+                probeBird.render(g);
+                drawPauseOverlay(g);
+            });
+            RenderQuality.setCurrent(chosen);
+        }, "RenderQuality-Probe");
+        probe.setDaemon(true);
+        probe.start();
+    }
+
     private void setupSelectionPanel() {
         selectionPanel = new SelectionPanel();
         selectionPanel.setOnStartCallback(this::startGame);
@@ -72,22 +237,16 @@ public class GamePanel extends JPanel {
     }
 
     private void startGame() {
-        remove(selectionPanel);
-        BufferedImage birdSprite = selectionPanel.getSelectedBirdSprite();
-        bird = new Bird(birdSprite);
-        
+        setupRun();
         state = GameState.PLAYING;
-        score = 0;
-        pipeManager.reset();
+        autopilot.setEnabled(attractMode || StartupProbe.isEnabled());
         
         // Start background music
         SoundPlayer.playBackgroundMusic("audiobackground");
         
         // Start game loop
         gameTimer = new Timer(Constants.TIMER_DELAY_MS, e -> {
-            if (state == GameState.PLAYING) {
-                updateGame();
-            }
+            tick();
             repaint();
         });
         gameTimer.start();
@@ -97,24 +256,256 @@ public class GamePanel extends JPanel {
         requestFocusInWindow();
     }
 
+    /**
+     * Show the broadcast game instead of playing: no selection screen, input,
+     * sound or rules, just the received world drawn every tick.
+     */
+    private void startSpectating() {
+        remove(selectionPanel);
+        showSpectatedSkin(0);
+        state = GameState.PLAYING;
+        gameTimer = new Timer(Constants.TIMER_DELAY_MS, e -> {
+            tick();
+            repaint();
+        });
+        gameTimer.start();
+        revalidate();
+        repaint();
+    }
+
+    private void showSpectatedSkin(int skin) {
+        spectatedSkin = skin;
+        bird = new Bird(AssetLoader.loadImage("/images/bird" + (skin % 3 + 1) + ".png"));
+        world = new GameWorld(bird, pipeManager);
+    }
+
+    /**
+     * Start an autopilot run without the selection screen, timer or music, for
+     * tools that call tick() and paintFrame() themselves (AllocationBudget).
+     */
+    void startHeadless() {
+        setupRun();
+        state = GameState.PLAYING;
+        autopilot.setEnabled(true);
+    }
+
+    GameState getState() {
+        return state;
+    }
+
+    /**
+     * Build the world for the chosen skin and mode and begin the first run.
+     */
+    private void setupRun() {
+        remove(selectionPanel);
+        BufferedImage birdSprite = selectionPanel.getSelectedBirdSprite();
+        bird = new Bird(birdSprite);
+        world = new GameWorld(bird, pipeManager);
+        if (versus != null) {
+            // Versus takes precedence over party and ghosts; the other bird arrives with the peer's skin
+            versus.attach(world, selectionPanel.getSelectedIndex(), Long.getLong("flappy.versusSeed", System.nanoTime()),
+                    skin -> {
+                        BufferedImage sprite = AssetLoader.loadImage("/images/bird" + (skin % 3 + 1) + ".png");
+                        PipeManager remotePipes = new PipeManager(pipeTop, pipeBottom);
+                        remotePipes.setCourse(course);
+                        remotePipes.setDifficulty(pipeSpeed, pipeGap, pipeInterval);
+                        remoteWorld = new GameWorld(new Bird(sprite), remotePipes);
+                        return remoteWorld;
+                    });
+        } else if (partyPlayers >= 2) {
+            // Player 1 flies the chosen skin; the others cycle through the rest
+            Bird[] birds = new Bird[partyPlayers];
+            birds[0] = bird;
+            for (int i = 1; i < partyPlayers; i++) {
+                int skin = (selectionPanel.getSelectedIndex() + i) % 3 + 1;
+                birds[i] = new Bird(AssetLoader.loadImage("/images/bird" + skin + ".png"));
+            }
+            party = new PartyWorld(birds, pipeManager);
+        } else if (!ghostMode.equals("off")) {
+            courseSeed = RunRecording.dailySeed(LocalDate.now());
+            ghostRuns = new ArrayList<>();
+            for (RunRecording run : RunRecording.loadAll(RunRecording.dailyDirectory(LocalDate.now()))) {
+                if (run.isCompatible(courseSeed, pipeManager)) {
+                    ghostRuns.add(run);
+                }
+            }
+            System.out.println("Loaded " + ghostRuns.size() + " ghost runs for today's course");
+        }
+        if (practiceMode) {
+            if (party != null || ghostRuns != null || versus != null) {
+                System.out.println("Practice rewind is single-player only and off while racing ghosts or a peer");
+            } else {
+                rewind = new RewindBuffer(rewindSeconds * Constants.TARGET_FPS, pipeManager.getLivePipeBound());
+            }
+        }
+        beginRun();
+    }
+
+    /**
+     * One fixed-rate timer tick. Allocation-free while playing once warmed up.
+     */
+    void tick() {
+        if (spectator != null) {
+            tickSpectator();
+        } else if (versus != null) {
+            tickVersus();
+        } else if (state == GameState.PLAYING && rewinding) {
+            // Scrub back one tick per frame; inputs made while rewinding are dropped
+            rewind.stepBack(world);
+            inputQueue.clear();
+            particles.update();
+        } else if (state == GameState.PLAYING) {
+            autopilot.tick(bird, pipeManager, inputQueue);
+            autopilotFlew |= autopilot.isEnabled();
+            updateGame();
+        } else if (state == GameState.GAME_OVER) {
+            // Let the crash debris settle, then stop ticking
+            particles.update();
+            if (particles.getActiveCount() == 0 && gameTimer != null) {
+                gameTimer.stop();
+            }
+        }
+        if (broadcast != null && party == null) {
+            broadcast.publish(world, state, selectionPanel.getSelectedIndex());
+        }
+    }
+
+    /**
+     * Show the newest state from the broadcast, if one arrived since the last tick.
+     */
+    private void tickSpectator() {
+        if (!spectator.take()) {
+            return;
+        }
+        if (spectator.getSkin() != spectatedSkin) {
+            showSpectatedSkin(spectator.getSkin());
+        }
+        WorldSnapshot.apply(spectator.getState(), world);
+        GameState shown = spectator.getGameState();
+        if (shown == GameState.GAME_OVER && state != GameState.GAME_OVER) {
+            gameOverScoreText = "Score: " + world.getScore();
+            gameOverBestText = "";
+        }
+        state = shown;
+    }
+
+    /**
+     * Reset the world for a new run. With ghosts on, the run is played on the
+     * daily course, recorded, and raced against the loaded ghosts.
+     */
+    private void beginRun() {
+        autopilotFlew = false;
+        practiceFlew = rewind != null;
+        if (versus != null) {
+            return; // the session resets both worlds when a round starts
+        }
+        if (party != null) {
+            party.reset();
+            return;
+        }
+        if (ghostRuns == null) {
+            world.reset();
+            if (rewind != null) {
+                rewind.clear();
+                rewind.record(world);
+            }
+            return;
+        }
+        world.reset(courseSeed);
+        currentRun = new RunRecording(courseSeed, selectionPanel.getSelectedIndex(), bird.getWidth(), bird.getHeight(),
+                pipeManager);
+
+        List<RunRecording> racing = ghostRuns;
+        if (ghostMode.equals("best") && !ghostRuns.isEmpty()) {
+            RunRecording best = ghostRuns.get(0);
+            for (RunRecording run : ghostRuns) {
+                if (run.getScore() > best.getScore()) {
+                    best = run;
+                }
+            }
+            racing = Collections.singletonList(best);
+        }
+        ghosts = new GhostBatch(racing);
+        ghosts.setSprite(getGraphicsConfiguration(), selectionPanel.getSelectedBirdSprite());
+    }
+
+    /**
+     * Finish and save the current recording so later runs can race it.
+     */
+    private void saveRun() {
+        if (currentRun == null) {
+            return;
+        }
+        if (autopilotFlew) {
+            currentRun = null; // ghosts race people, not the bot
+            return;
+        }
+        currentRun.finish(world.getScore(), (int) world.getTick());
+        try {
+            currentRun.save(RunRecording.dailyDirectory(LocalDate.now())
+                    .resolve("run-" + System.currentTimeMillis() + RunRecording.EXTENSION));
+        } catch (IOException e) {
+            System.err.println("Failed to save run: " + e.getMessage());
+        }
+        ghostRuns.add(currentRun);
+        currentRun = null;
+    }
+
     private void setupInputHandlers() {
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
+                if (spectator != null) {
+                    return; // spectators only watch
+                }
                 int key = e.getKeyCode();
+
+                // Q cycles render quality presets at any point during a game
+                if (key == KeyEvent.VK_Q && state != GameState.SELECT) {
+                    RenderQuality.cycle();
+                    repaint();
+                    return;
+                }
+
+                // H shows where birds have died
+                if (key == KeyEvent.VK_H && state != GameState.SELECT) {
+                    showHeatmap = !showHeatmap;
+                    repaint();
+                    return;
+                }
+
+                // F9 saves the last few seconds of gameplay
+                if (key == KeyEvent.VK_F9 && clipRecorder != null) {
+                    clipRecorder.saveReplay();
+                    return;
+                }
+
+                // Holding Backspace rewinds in practice mode, also from the game over screen
+                if (key == KeyEvent.VK_BACK_SPACE && rewind != null) {
+                    startRewind();
+                    return;
+                }
                 
-                if (state == GameState.PLAYING) {
+                int player = partyPlayer(key);
+                if (player >= 0 && (state == GameState.PLAYING || state == GameState.PAUSED)) {
+                    if (state == GameState.PAUSED) {
+                        togglePause();
+                    }
+                    inputQueue.offer(InputQueue.PARTY_FLAP + player, e.getWhen());
+                } else if (state == GameState.PLAYING) {
                     if (key == KeyEvent.VK_SPACE || key == KeyEvent.VK_UP) {
-                        flapBird();
-                    } else if (key == KeyEvent.VK_P) {
+                        inputQueue.offer(InputQueue.FLAP, e.getWhen());
+                    } else if (key == KeyEvent.VK_P && versus == null) {
                         togglePause();
+                    } else if (key == KeyEvent.VK_A && party == null) {
+                        autopilot.setEnabled(!autopilot.isEnabled());
                     }
                 } else if (state == GameState.PAUSED) {
                     if (key == KeyEvent.VK_P) {
                         togglePause();
                     } else if (key == KeyEvent.VK_SPACE || key == KeyEvent.VK_UP) {
                         togglePause();
-                        flapBird();
+                        inputQueue.offer(InputQueue.FLAP, e.getWhen());
                     }
                 } else if (state == GameState.GAME_OVER) {
                     if (key == KeyEvent.VK_R) {
@@ -122,21 +513,35 @@ public class GamePanel extends JPanel {
                     }
                 }
             }
+
+            @Override
+            public void keyReleased(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+                    // Play resumes from wherever the rewind stopped
+                    rewinding = false;
+                }
+            }
         });
 
         addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                // Flap on press rather than click (release) to cut latency
+                if (spectator == null && (state == GameState.PLAYING || state == GameState.PAUSED)) {
+                    if (state == GameState.PAUSED) {
+                        togglePause();
+                    }
+                    inputQueue.offer(InputQueue.FLAP, e.getWhen());
+                }
+            }
+
             @Override
             public void mouseClicked(MouseEvent e) {
                 // Only handle clicks if not in SELECT state (SelectionPanel handles that)
                 if (state == GameState.SELECT) {
                     return; // Let SelectionPanel handle it
                 }
-                if (state == GameState.PLAYING || state == GameState.PAUSED) {
-                    flapBird();
-                    if (state == GameState.PAUSED) {
-                        togglePause();
-                    }
-                } else if (state == GameState.GAME_OVER) {
+                if (state == GameState.GAME_OVER && spectator == null) {
                     handleGameOverClick(e.getX(), e.getY());
                 }
             }
@@ -160,11 +565,106 @@ public class GamePanel extends JPanel {
         });
     }
 
-    private void flapBird() {
-        if (state == GameState.PLAYING && bird != null) {
-            bird.flap();
-            SoundPlayer.play("flap");
+    /**
+     * Key code to party player index, or -1 if not in party mode or not a player key.
+     */
+    private int partyPlayer(int keyCode) {
+        if (party == null) {
+            return -1;
+        }
+        for (int i = 0; i < party.getPlayers(); i++) {
+            if (partyKeys[i] == keyCode) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse a comma-separated list of key names (as in KeyStroke, e.g. SPACE, UP, Z).
+     * Gamepads can be used through any gamepad-to-key mapper.
+     */
+    private static int[] parsePartyKeys(String names) {
+        int[] keys = new int[PartyWorld.MAX_PLAYERS];
+        Arrays.fill(keys, KeyEvent.VK_UNDEFINED);
+        String[] parts = names.split(",");
+        for (int i = 0; i < parts.length && i < keys.length; i++) {
+            KeyStroke stroke = KeyStroke.getKeyStroke(parts[i].trim().toUpperCase());
+            if (stroke != null) {
+                keys[i] = stroke.getKeyCode();
+            } else {
+                System.err.println("Unknown party key: " + parts[i]);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Drain every input due this tick into a per-player flap mask. Mouse and
+     * single-player flaps count as player 1; repeats within one tick merge.
+     */
+    private int pollPartyFlaps() {
+        long now = System.currentTimeMillis();
+        int flapMask = 0;
+        for (InputQueue.Event event = inputQueue.poll(now); event != null; event = inputQueue.poll(now)) {
+            int player = event.type == InputQueue.FLAP ? 0 : event.type - InputQueue.PARTY_FLAP;
+            if (player >= 0 && player < PartyWorld.MAX_PLAYERS) {
+                flapMask |= 1 << player;
+            }
+            if (unpresentedCount < unpresentedInputs.length) {
+                unpresentedInputs[unpresentedCount++] = event.when;
+            }
+        }
+        return flapMask;
+    }
+
+    /**
+     * Take the flap that is due for this tick, if any, and remember its
+     * timestamp so the latency can be measured once the frame is painted.
+     */
+    private boolean pollQueuedFlap() {
+        InputQueue.Event flap = inputQueue.poll(InputQueue.FLAP, System.currentTimeMillis());
+        if (flap == null) {
+            return false;
+        }
+        if (unpresentedCount < unpresentedInputs.length) {
+            unpresentedInputs[unpresentedCount++] = flap.when;
+        }
+        return true;
+    }
+
+    /**
+     * Record input-to-present latency for every input applied since the last paint.
+     */
+    private void recordPresentedInputs() {
+        if (unpresentedCount == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < unpresentedCount; i++) {
+            inputLatency.record(now - unpresentedInputs[i]);
+        }
+        unpresentedCount = 0;
+    }
+
+    /**
+     * Begin scrubbing backwards (key repeats while held are ignored). From the
+     * game over screen this brings the run back to life.
+     */
+    private void startRewind() {
+        if (rewinding || state == GameState.SELECT) {
+            return;
+        }
+        if (state == GameState.PAUSED) {
+            state = GameState.PLAYING;
+        } else if (state == GameState.GAME_OVER) {
+            state = GameState.PLAYING;
+            SoundPlayer.playBackgroundMusic("audiobackground");
+            if (gameTimer != null) {
+                gameTimer.start();
+            }
         }
+        rewinding = true;
     }
 
     private void togglePause() {
@@ -177,61 +677,192 @@ public class GamePanel extends JPanel {
     }
 
     private void updateGame() {
-        // Update bird
-        bird.update();
-
-        // Update pipes
-        pipeManager.update();
+        if (party != null) {
+            updateParty();
+            return;
+        }
+        boolean flap = pollQueuedFlap();
+        if (currentRun != null) {
+            currentRun.record(flap);
+        }
+        int events = world.step(flap);
+        if (rewind != null) {
+            rewind.record(world);
+        }
+        if (ghosts != null) {
+            ghosts.step();
+        }
+        particles.update();
+        if (flap) {
+            SoundPlayer.play("flap");
+            particles.emitFlap(bird.getX(), bird.getY() + bird.getHeight() / 2f);
+        }
 
-        // Check scoring
-        int newPoints = pipeManager.checkScoring(bird);
-        if (newPoints > 0) {
-            score += newPoints;
+        // Scoring
+        if ((events & GameWorld.POINT) != 0) {
             SoundPlayer.play("point");
-            if (score > highScore) {
-                highScore = score;
-                HighScoreStore.saveHighScore(highScore);
+            particles.emitScore(bird.getX() + bird.getWidth() / 2f, bird.getY() + bird.getHeight() / 2f);
+            if (!autopilotFlew && !practiceFlew && world.getScore() > highScore) {
+                highScore = world.getScore();
             }
         }
 
-        // Check collisions
-        if (pipeManager.checkCollision(bird)) {
+        // Collisions
+        if ((events & GameWorld.HIT_PIPE) != 0) {
             // Stop background music and play hit sound when hitting a pipe
             SoundPlayer.stopBackgroundMusic();
             SoundPlayer.play("hitaudio");
             gameOver();
-            return;
+        } else if ((events & GameWorld.DIED) != 0) {
+            // Ground or ceiling
+            gameOver();
         }
+    }
 
-        // Check ground collision (at the very bottom)
-        int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
-        if (bird.getY() + bird.getHeight() >= groundY) {
+    private void updateParty() {
+        int flapMask = pollPartyFlaps();
+        int events = party.step(flapMask);
+        particles.update();
+        if (flapMask != 0) {
+            SoundPlayer.play("flap");
+            for (int i = 0; i < party.getPlayers(); i++) {
+                if ((flapMask & (1 << i)) != 0 && party.isAlive(i)) {
+                    Bird b = party.getBird(i);
+                    particles.emitFlap(b.getX(), b.getY() + b.getHeight() / 2f);
+                }
+            }
+        }
+        for (int i = 0; i < party.getPlayers(); i++) {
+            if ((events & (1 << i)) != 0) {
+                Bird b = party.getBird(i);
+                particles.emitCrash(b.getX() + b.getWidth() / 2f, b.getY() + b.getHeight() / 2f);
+            }
+        }
+        if ((events & PartyWorld.POINT) != 0) {
+            SoundPlayer.play("point");
+            if (!autopilotFlew && party.getBestScore() > highScore) {
+                highScore = party.getBestScore();
+            }
+        }
+        if (party.isOver()) {
+            SoundPlayer.stopBackgroundMusic();
             gameOver();
-            return;
+        } else if ((events & ~PartyWorld.POINT) != 0) {
+            SoundPlayer.play("hitaudio");
         }
+    }
 
-        // Check ceiling collision (optional, but prevents going off-screen top)
-        if (bird.getY() < 0) {
+    /**
+     * One versus tick: take in the peer's inputs (possibly rolling back its
+     * bird), advance unless waiting on the peer, and send our inputs.
+     */
+    private void tickVersus() {
+        versus.receive();
+        if (state == GameState.GAME_OVER) {
+            particles.update();
+            if (versus.isRunning()) {
+                // Both cabinets asked for a rematch
+                particles.clear();
+                state = GameState.PLAYING;
+                autopilotFlew = false;
+                SoundPlayer.playBackgroundMusic("audiobackground");
+            }
+        } else if (state == GameState.PLAYING && versus.canAdvance()) {
+            autopilot.tick(bird, pipeManager, inputQueue);
+            autopilotFlew |= autopilot.isEnabled();
+            updateVersus();
+        } else if (!versus.isRunning()) {
+            inputQueue.clear(); // nothing to flap yet; short stalls keep their inputs
+        }
+        if (state == GameState.PLAYING && versus.isRoundOver()) {
             gameOver();
         }
+        versus.send();
+    }
+
+    private void updateVersus() {
+        boolean flap = pollQueuedFlap();
+        int events = versus.advance(flap);
+        particles.update();
+        if (flap && !world.isDead()) {
+            SoundPlayer.play("flap");
+            particles.emitFlap(bird.getX(), bird.getY() + bird.getHeight() / 2f);
+        }
+        if ((events & GameWorld.POINT) != 0) {
+            SoundPlayer.play("point");
+            particles.emitScore(bird.getX() + bird.getWidth() / 2f, bird.getY() + bird.getHeight() / 2f);
+            if (!autopilotFlew && world.getScore() > highScore) {
+                highScore = world.getScore();
+            }
+        }
+        if ((events & GameWorld.DIED) != 0) {
+            // The round goes on until the other bird is down too
+            SoundPlayer.play("hitaudio");
+            particles.emitCrash(bird.getX() + bird.getWidth() / 2f, bird.getY() + bird.getHeight() / 2f);
+        }
+    }
+
+    /**
+     * Result line for a finished versus round: higher score wins, then longer flight.
+     */
+    private String versusResult() {
+        int ours = world.getScore();
+        int theirs = remoteWorld.getScore();
+        int order = ours != theirs ? Integer.compare(ours, theirs) : Long.compare(world.getTick(), remoteWorld.getTick());
+        String outcome = order > 0 ? "You win " : order < 0 ? "You lose " : "Draw ";
+        return outcome + ours + " - " + theirs;
     }
 
     private void gameOver() {
         state = GameState.GAME_OVER;
+        inputQueue.clear();
+        saveRun();
+        saveHighScore();
+        if (party == null && !autopilotFlew && !practiceFlew) {
+            deathHeatmap.record(world);
+        }
+        if (leaderboard != null && !autopilotFlew && !practiceFlew) {
+            leaderboard.submit(party != null ? party.getBestScore() : world.getScore(), selectionPanel.getSelectedIndex());
+        }
+        gameOverScoreText = versus != null ? versusResult()
+                : "Score: " + (party != null ? party.getBestScore() : world.getScore());
+        gameOverBestText = "Best: " + highScore;
+        System.out.println(inputLatency.summary());
         // Stop background music
         SoundPlayer.stopBackgroundMusic();
         SoundPlayer.play("hitaudio");
         SoundPlayer.play("die");
-        if (gameTimer != null) {
+        if (party == null && versus == null) {
+            particles.emitCrash(bird.getX() + bird.getWidth() / 2f, bird.getY() + bird.getHeight() / 2f);
+        }
+        // The timer keeps ticking particles during game over and stops itself once they settle
+        // (versus keeps it running to talk to the peer)
+        if (gameTimer != null && particles.getActiveCount() == 0 && versus == null) {
             gameTimer.stop();
         }
+        if (attractMode) {
+            // Demo loop: start the next run after a short pause on the game over screen
+            Timer restart = new Timer(2000, e -> {
+                if (state == GameState.GAME_OVER) {
+                    restartGame();
+                }
+            });
+            restart.setRepeats(false);
+            restart.start();
+        }
         repaint();
     }
 
     private void restartGame() {
-        bird.reset();
-        pipeManager.reset();
-        score = 0;
+        if (versus != null) {
+            // The next round starts once the other cabinet asks for it too
+            versus.requestRematch();
+            repaint();
+            return;
+        }
+        rewinding = false;
+        beginRun();
+        particles.clear();
         state = GameState.PLAYING;
         // Restart background music
         SoundPlayer.playBackgroundMusic("audiobackground");
@@ -241,10 +872,34 @@ public class GamePanel extends JPanel {
         repaint();
     }
 
+    private void saveHighScore() {
+        if (leaderboard != null) {
+            return; // the venue leaderboard keeps the scores
+        }
+        if (highScore > savedHighScore) {
+            HighScoreStore.saveHighScore(highScore);
+            savedHighScore = highScore;
+        }
+    }
+
     private void handleGameOverClick(int x, int y) {
         if (isPlayAgainButton(x, y)) {
             restartGame();
         } else if (isQuitButton(x, y)) {
+            quit();
+        }
+    }
+
+    /**
+     * Quit the way closing the window does, so cleanup() saves the heatmap and
+     * latency files and lets queued leaderboard posts go out first.
+     */
+    private void quit() {
+        Window window = SwingUtilities.getWindowAncestor(this);
+        if (window != null) {
+            window.dispatchEvent(new WindowEvent(window, WindowEvent.WINDOW_CLOSING));
+        } else {
+            cleanup();
             System.exit(0);
         }
     }
@@ -265,56 +920,108 @@ public class GamePanel extends JPanel {
         if (gameTimer != null) {
             gameTimer.stop();
         }
+        saveHighScore();
+        if (deathHeatmap.getTotal() > heatmapSaved) {
+            deathHeatmap.save(DeathHeatmap.defaultFile());
+        }
+        inputLatency.writeTo(Paths.get(System.getProperty("user.home"),
+                Constants.HIGH_SCORE_DIR, Constants.INPUT_LATENCY_FILE));
+        if (clipRecorder != null) {
+            clipRecorder.shutdown();
+        }
+        if (versus != null) {
+            System.out.println(versus.summary());
+            versus.close();
+        }
+        if (broadcast != null) {
+            broadcast.shutdown();
+        }
+        if (spectator != null) {
+            spectator.shutdown();
+        }
+        if (leaderboard != null) {
+            leaderboard.shutdown();
+        }
         SoundPlayer.cleanup();
     }
 
     @Override
     protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
         if (state == GameState.SELECT) {
             // Selection panel handles its own rendering
-            super.paintComponent(g);
             return;
         }
-        
-        super.paintComponent(g);
+        paintFrame((Graphics2D) g);
+    }
 
-        Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    /**
+     * Paint one game frame into g. Allocation-free while playing once warmed up.
+     */
+    void paintFrame(Graphics2D g) {
+        // Render at the internal resolution, upscaled once to the window
+        renderScaler.paint(g, Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT, sceneRenderer);
+        recordPresentedInputs();
+        if (state == GameState.PLAYING) {
+            StartupProbe.gameplayFrame();
+        }
 
-        // Draw background
-        if (background != null) {
-            g2d.drawImage(background, 0, 0, Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT, null);
-        } else {
-            g2d.setColor(new Color(135, 206, 235));
-            g2d.fillRect(0, 0, getWidth(), getHeight());
+        if (clipRecorder != null && (state == GameState.PLAYING || state == GameState.GAME_OVER)) {
+            clipRecorder.capture(renderScaler.getLastFrame());
         }
+    }
+
+    /**
+     * Draw the whole scene in window coordinates.
+     */
+    private void renderScene(Graphics2D g2d) {
+        RenderQuality.current().apply(g2d);
+
+        // In versus, the other bird's course keeps scrolling once ours has crashed
+        PipeManager shownPipes = versus != null && remoteWorld != null && world.isDead()
+                ? remoteWorld.getPipeManager() : pipeManager;
+
+        // Draw cached background and ground strip (scrolls with the pipes, not wall time)
+        staticLayer.render(g2d, shownPipes != null ? shownPipes.getDistance() : 0,
+                renderScaler.getScaleX(Constants.WINDOW_WIDTH), renderScaler.getScaleY(Constants.WINDOW_HEIGHT));
 
         // Draw pipes
-        if (pipeManager != null) {
-            pipeManager.render(g2d);
+        if (shownPipes != null) {
+            shownPipes.render(g2d);
         }
 
-        // Draw ground at the very bottom
-        int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
-        if (ground != null) {
-            int groundWidth = ground.getWidth();
-            int offset = (int) (System.currentTimeMillis() / 10) % groundWidth;
-            for (int x = -offset; x < Constants.WINDOW_WIDTH; x += groundWidth) {
-                g2d.drawImage(ground, x, groundY, null);
+        if (showHeatmap && world != null) {
+            Pipe next = world.nextPipe();
+            if (next != null) {
+                deathHeatmap.render(g2d, next);
             }
-        } else {
-            g2d.setColor(new Color(139, 90, 43)); // Brown
-            g2d.fillRect(0, groundY, Constants.WINDOW_WIDTH, Constants.GROUND_HEIGHT);
         }
 
-        // Draw bird
-        if (bird != null) {
+        // Draw ghosts behind the player's bird
+        if (ghosts != null) {
+            ghosts.render(g2d);
+        }
+
+        // Draw bird(s)
+        if (party != null) {
+            drawPartyBirds(g2d);
+        } else if (versus != null) {
+            drawVersusBirds(g2d);
+        } else if (bird != null) {
             bird.render(g2d);
         }
 
+        // Draw particles over the birds, under the HUD
+        particles.render(g2d);
+
         // Draw HUD
-        drawHUD(g2d);
+        if (party != null) {
+            drawPartyHUD(g2d);
+        } else if (versus != null) {
+            drawVersusHUD(g2d);
+        } else {
+            drawHUD(g2d);
+        }
 
         // Draw overlays
         if (state == GameState.PAUSED) {
@@ -325,32 +1032,110 @@ public class GamePanel extends JPanel {
     }
 
     private void drawHUD(Graphics2D g) {
-        // Score
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 48));
-        String scoreText = String.valueOf(score);
-        int scoreWidth = g.getFontMetrics().stringWidth(scoreText);
-        
-        // Shadow
-        g.setColor(Color.BLACK);
-        g.drawString(scoreText, (Constants.WINDOW_WIDTH - scoreWidth) / 2 + 2, 62);
-        g.setColor(Color.WHITE);
-        g.drawString(scoreText, (Constants.WINDOW_WIDTH - scoreWidth) / 2, 60);
+        // Score with its shadow, blitted from pre-rendered digits
+        int score = world.getScore();
+        int scoreWidth = scoreText.numberWidth(g, score);
+        scoreText.drawNumber(g, score, (Constants.WINDOW_WIDTH - scoreWidth) / 2, 60);
+
+        if (autopilot.isEnabled()) {
+            labelText.drawLabel(g, "AUTOPILOT", 20, 30);
+        }
+        if (spectator != null) {
+            labelText.drawLabel(g, spectator.isConnected() ? "LIVE" : "WAITING FOR BROADCAST", 20, 30);
+        }
+        if (rewind != null) {
+            labelText.drawLabel(g, rewinding ? "REWIND" : "PRACTICE", 20, 55);
+        }
+    }
+
+    /**
+     * Live birds with a player tag above each; the dead are left behind.
+     */
+    private void drawPartyBirds(Graphics2D g) {
+        for (int i = party.getPlayers() - 1; i >= 0; i--) {
+            if (!party.isAlive(i)) {
+                continue;
+            }
+            Bird b = party.getBird(i);
+            b.render(g);
+            partyTagText[i].drawLabel(g, PLAYER_TAGS[i], b.getX() + b.getWidth() / 2 - 8, b.getY() - 4);
+        }
+    }
+
+    /**
+     * The other cabinet's bird behind ours, both tagged with their player number.
+     */
+    private void drawVersusBirds(Graphics2D g) {
+        int us = versus.getPlayer() - 1;
+        if (remoteWorld != null && versus.getRound() >= 0) {
+            Bird other = remoteWorld.getBird();
+            other.render(g);
+            partyTagText[1 - us].drawLabel(g, PLAYER_TAGS[1 - us], other.getX() + other.getWidth() / 2 - 8, other.getY() - 4);
+        }
+        bird.render(g);
+        partyTagText[us].drawLabel(g, PLAYER_TAGS[us], bird.getX() + bird.getWidth() / 2 - 8, bird.getY() - 4);
+    }
+
+    /**
+     * Both scores in party style, then the connection state when there is one to show.
+     */
+    private void drawVersusHUD(Graphics2D g) {
+        for (int i = 0; i < 2; i++) {
+            GameWorld w = i == versus.getPlayer() - 1 ? world : remoteWorld;
+            if (w == null) {
+                continue;
+            }
+            HudText text = w.isDead() ? deadScoreText : partyScoreText[i];
+            int y = 40 + i * 30;
+            text.drawLabel(g, PLAYER_LABELS[i], 20, y);
+            text.drawNumber(g, w.getScore(), 20 + text.labelWidth(g, PLAYER_LABELS[i]), y);
+        }
+        if (!versus.isConnected()) {
+            labelText.drawLabel(g, "WAITING FOR THE OTHER CABINET", 20, 105);
+        } else if (versus.isPeerLost()) {
+            labelText.drawLabel(g, "CONNECTION LOST", 20, 105);
+        } else if (versus.isRematchPending()) {
+            labelText.drawLabel(g, "WAITING FOR REMATCH", 20, 105);
+        }
+        if (autopilot.isEnabled()) {
+            labelText.drawLabel(g, "AUTOPILOT", 20, 130);
+        }
+    }
+
+    private static HudText[] playerTexts(Font font, Color shadow) {
+        HudText[] texts = new HudText[PartyWorld.MAX_PLAYERS];
+        for (int i = 0; i < texts.length; i++) {
+            texts[i] = new HudText(font, PLAYER_COLORS[i], shadow);
+        }
+        return texts;
+    }
+
+    /**
+     * Per-player scores down the left edge, in the player's colour (grey once out),
+     * blitted from pre-rendered labels and digits so the HUD allocates nothing.
+     */
+    private void drawPartyHUD(Graphics2D g) {
+        for (int i = 0; i < party.getPlayers(); i++) {
+            HudText text = party.isAlive(i) ? partyScoreText[i] : deadScoreText;
+            int y = 40 + i * 30;
+            text.drawLabel(g, PLAYER_LABELS[i], 20, y);
+            text.drawNumber(g, party.getScore(i), 20 + text.labelWidth(g, PLAYER_LABELS[i]), y);
+        }
     }
 
     private void drawPauseOverlay(Graphics2D g) {
         // Semi-transparent overlay
-        g.setColor(new Color(0, 0, 0, 150));
+        g.setColor(PAUSE_SHADE);
         g.fillRect(0, 0, Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT);
 
         // Pause text
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 48));
+        g.setFont(SCORE_FONT);
         String text = "PAUSED";
         int width = g.getFontMetrics().stringWidth(text);
         g.drawString(text, (Constants.WINDOW_WIDTH - width) / 2, Constants.WINDOW_HEIGHT / 2);
 
-        g.setFont(new Font("Arial", Font.PLAIN, 18));
+        g.setFont(HINT_FONT);
         String hint = "Press P to resume";
         int hintWidth = g.getFontMetrics().stringWidth(hint);
         g.drawString(hint, (Constants.WINDOW_WIDTH - hintWidth) / 2, Constants.WINDOW_HEIGHT / 2 + 40);
@@ -358,41 +1143,42 @@ public class GamePanel extends JPanel {
 
     private void drawGameOverOverlay(Graphics2D g) {
         // Semi-transparent overlay
-        g.setColor(new Color(0, 0, 0, 180));
+        g.setColor(GAME_OVER_SHADE);
         g.fillRect(0, 0, Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT);
 
         // Game Over text
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 48));
+        g.setFont(SCORE_FONT);
         String gameOverText = "GAME OVER";
         int gameOverWidth = g.getFontMetrics().stringWidth(gameOverText);
         g.drawString(gameOverText, (Constants.WINDOW_WIDTH - gameOverWidth) / 2, Constants.WINDOW_HEIGHT / 2 - 60);
 
         // Score
-        g.setFont(new Font("Arial", Font.PLAIN, 24));
-        String scoreText = "Score: " + score;
-        int scoreWidth = g.getFontMetrics().stringWidth(scoreText);
-        g.drawString(scoreText, (Constants.WINDOW_WIDTH - scoreWidth) / 2, Constants.WINDOW_HEIGHT / 2 - 10);
+        // Score and best, formatted once when the run ended
+        g.setFont(RESULT_FONT);
+        int scoreWidth = g.getFontMetrics().stringWidth(gameOverScoreText);
+        g.drawString(gameOverScoreText, (Constants.WINDOW_WIDTH - scoreWidth) / 2, Constants.WINDOW_HEIGHT / 2 - 10);
 
-        // High Score
-        String highScoreText = "Best: " + highScore;
-        int highScoreWidth = g.getFontMetrics().stringWidth(highScoreText);
-        g.drawString(highScoreText, (Constants.WINDOW_WIDTH - highScoreWidth) / 2, Constants.WINDOW_HEIGHT / 2 + 20);
+        int highScoreWidth = g.getFontMetrics().stringWidth(gameOverBestText);
+        g.drawString(gameOverBestText, (Constants.WINDOW_WIDTH - highScoreWidth) / 2, Constants.WINDOW_HEIGHT / 2 + 20);
+        if (spectator != null) {
+            return; // nothing to click on a spectator screen
+        }
 
         // Play Again button
         int btnX = Constants.WINDOW_WIDTH / 2 - 80;
         int btnY = Constants.WINDOW_HEIGHT / 2 + 50;
-        g.setColor(playAgainHover ? new Color(0, 200, 0) : new Color(0, 150, 0));
+        g.setColor(playAgainHover ? PLAY_AGAIN_HOVER : PLAY_AGAIN);
         g.fillRoundRect(btnX, btnY, 160, 40, 10, 10);
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 20));
+        g.setFont(BUTTON_FONT);
         String btnText = "Play Again";
         int btnTextWidth = g.getFontMetrics().stringWidth(btnText);
         g.drawString(btnText, btnX + (160 - btnTextWidth) / 2, btnY + 28);
 
         // Quit button
         btnY = Constants.WINDOW_HEIGHT / 2 + 100;
-        g.setColor(quitHover ? new Color(200, 0, 0) : new Color(150, 0, 0));
+        g.setColor(quitHover ? QUIT_HOVER : QUIT);
         g.fillRoundRect(btnX, btnY, 160, 40, 10, 10);
         g.setColor(Color.WHITE);
         String quitText = "Quit";
@@ -400,7 +1186,7 @@ public class GamePanel extends JPanel {
         g.drawString(quitText, btnX + (160 - quitTextWidth) / 2, btnY + 28);
 
         // Hint
-        g.setFont(new Font("Arial", Font.PLAIN, 14));
+        g.setFont(SMALL_FONT);
         String hint = "Or press R to restart";
         int hintWidth = g.getFontMetrics().stringWidth(hint);
         g.drawString(hint, (Constants.WINDOW_WIDTH - hintWidth) / 2, Constants.WINDOW_HEIGHT / 2 + 160);
@@ -0,0 +1,174 @@
+package com.example.flappy;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * The game rules without rendering: one bird, the pipes and the score,
+ * advanced one tick at a time. GamePanel drives one for live play; trainers
+ * and other headless tools run their own copies.
+ */
+public class GameWorld {
+    // Event flags returned by step()
+    public static final int POINT = 1;
+    public static final int HIT_PIPE = 2;
+    public static final int HIT_GROUND = 4;
+    public static final int HIT_CEILING = 8;
+    public static final int DIED = HIT_PIPE | HIT_GROUND | HIT_CEILING;
+
+    public static final int SKINS = 3;
+
+    private static final BufferedImage[] skinSprites = new BufferedImage[SKINS];
+
+    private final Bird bird;
+    private final PipeManager pipeManager;
+    private int score;
+    private long tick;
+    private boolean dead;
+
+    public GameWorld(Bird bird, PipeManager pipeManager) {
+        this.bird = bird;
+        this.pipeManager = pipeManager;
+    }
+
+    /**
+     * Headless world with a sprite-less bird of the given collision size
+     * (padded-box collision, not the rules of live play).
+     */
+    public static GameWorld headless(int birdWidth, int birdHeight) {
+        return new GameWorld(new Bird(birdWidth, birdHeight), new PipeManager(null, null));
+    }
+
+    /**
+     * Headless world flying one of the bundled skins (0-2, bird1-bird3) at its
+     * display size and with its pixel masks, so it plays by the same rules as
+     * live play. Sprites are loaded once, so every world shares their masks.
+     */
+    public static GameWorld forSkin(int skin) {
+        return new GameWorld(new Bird(skinSprite(skin)), new PipeManager(null, null));
+    }
+
+    /**
+     * Display height of the tallest skin's bird. Pipe generation makes every
+     * gap fit this bird, so a seed yields the same course whichever skin flies.
+     */
+    public static int tallestBirdHeight() {
+        int tallest = 0;
+        for (int i = 0; i < SKINS; i++) {
+            tallest = Math.max(tallest, Bird.displayHeight(skinSprite(i)));
+        }
+        return tallest;
+    }
+
+    public static synchronized BufferedImage skinSprite(int skin) {
+        int index = Math.floorMod(skin, SKINS);
+        if (skinSprites[index] == null) {
+            skinSprites[index] = AssetLoader.loadImage("/images/bird" + (index + 1) + ".png");
+        }
+        return skinSprites[index];
+    }
+
+    /**
+     * Start a new run; pipe generation continues its current random sequence.
+     */
+    public void reset() {
+        bird.reset();
+        pipeManager.reset();
+        score = 0;
+        tick = 0;
+        dead = false;
+    }
+
+    /**
+     * Start a new run whose pipe course is fully determined by the seed.
+     */
+    public void reset(long seed) {
+        reset();
+        pipeManager.reset(seed);
+    }
+
+    /**
+     * Advance one tick. The flap (if any) is applied first, then the bird and
+     * pipes move, scoring is checked, and finally collisions.
+     *
+     * @return a combination of POINT and at most one HIT_* flag
+     */
+    public int step(boolean flap) {
+        if (dead) {
+            return 0;
+        }
+        tick++;
+        if (flap) {
+            bird.flap();
+        }
+
+        bird.update();
+        pipeManager.update();
+
+        int events = 0;
+        int newPoints = pipeManager.checkScoring(bird);
+        if (newPoints > 0) {
+            score += newPoints;
+            events |= POINT;
+        }
+
+        if (pipeManager.checkCollision(bird)) {
+            events |= HIT_PIPE;
+        } else if (bird.getY() + bird.getHeight() >= Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT) {
+            // Ground at the very bottom
+            events |= HIT_GROUND;
+        } else if (bird.getY() < 0) {
+            // Ceiling prevents going off-screen top
+            events |= HIT_CEILING;
+        }
+        if ((events & DIED) != 0) {
+            dead = true;
+        }
+        return events;
+    }
+
+    /**
+     * Set the tick counter, score and death flag of a restored state; the bird
+     * and pipes are restored on their own objects (see WorldSnapshot).
+     */
+    public void restore(long tick, int score, boolean dead) {
+        this.tick = tick;
+        this.score = score;
+        this.dead = dead;
+    }
+
+    /**
+     * First pipe whose right edge is still ahead of the bird's left edge, or null.
+     */
+    public Pipe nextPipe() {
+        List<Pipe> pipes = pipeManager.getPipes();
+        int birdX = bird.getX();
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
+            if (pipe.getX() + pipe.getWidth() > birdX) {
+                return pipe;
+            }
+        }
+        return null;
+    }
+
+    public Bird getBird() {
+        return bird;
+    }
+
+    public PipeManager getPipeManager() {
+        return pipeManager;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public boolean isDead() {
+        return dead;
+    }
+}
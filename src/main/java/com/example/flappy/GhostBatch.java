@@ -0,0 +1,233 @@
+package com.example.flappy;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Ghost birds replaying recorded runs on the same seeded course as the player.
+ *
+ * Ghost state lives in parallel primitive arrays and every live ghost advances
+ * in one loop per tick with the same physics as Bird. Ghosts don't collide:
+ * each one disappears on the tick its recording says it died. All ghosts share
+ * the player's x position and one pre-tinted translucent sprite, so ghosts that
+ * round to the same row band draw identically; each band is blitted at most once
+ * per frame, which keeps thousands of ghosts to a few hundred blits.
+ */
+public class GhostBatch {
+    private static final int ROW_BAND = 2;        // ghosts within 2 px share one blit
+    private static final float GHOST_ALPHA = 0.35f;
+    private static final int GHOST_TINT = 0xDDEEFF;
+
+    private final int count;
+    private final float[] y;
+    private final float[] velY;
+    private final int[] deathTick;
+    private final long[][] flaps;
+    private final int[] live;     // indices of ghosts still flying, compacted as they die
+    private int liveCount;
+    private int tick;
+
+    private BufferedImage sprite;
+    private int spriteHeight;
+    private final int[] bandStamp;
+    private int frameStamp;
+
+    public GhostBatch(List<RunRecording> runs) {
+        count = runs.size();
+        y = new float[count];
+        velY = new float[count];
+        deathTick = new int[count];
+        flaps = new long[count][];
+        live = new int[count];
+        for (int i = 0; i < count; i++) {
+            RunRecording run = runs.get(i);
+            deathTick[i] = run.getDeathTick();
+            flaps[i] = run.getFlapBits();
+        }
+        bandStamp = new int[Constants.WINDOW_HEIGHT / ROW_BAND + 1];
+        reset();
+    }
+
+    /**
+     * Rewind every ghost to the start of its run.
+     */
+    public void reset() {
+        Arrays.fill(y, Constants.BIRD_START_Y);
+        Arrays.fill(velY, 0);
+        liveCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (deathTick[i] > 0) {
+                live[liveCount++] = i;
+            }
+        }
+        tick = 0;
+    }
+
+    /**
+     * Advance every live ghost one tick, mirroring GameWorld.step and Bird.update.
+     */
+    public void step() {
+        int t = tick++;
+        int word = t >>> 6;
+        long bit = 1L << t;
+        int kept = 0;
+        for (int k = 0; k < liveCount; k++) {
+            int i = live[k];
+            long[] bits = flaps[i];
+            float v = velY[i];
+            if (word < bits.length && (bits[word] & bit) != 0) {
+                v = Constants.FLAP_IMPULSE;
+            }
+            v += Constants.GRAVITY;
+            if (v > Constants.TERMINAL_VELOCITY) {
+                v = Constants.TERMINAL_VELOCITY;
+            }
+            velY[i] = v;
+            y[i] += v;
+            // Gone once it reaches the tick it died on
+            if (tick < deathTick[i]) {
+                live[kept++] = i;
+            }
+        }
+        liveCount = kept;
+    }
+
+    /**
+     * Pre-tint the player's sprite once at display size; all ghosts draw with it.
+     */
+    public void setSprite(GraphicsConfiguration gc, BufferedImage birdSprite) {
+        if (birdSprite == null) {
+            sprite = null;
+            return;
+        }
+        int width = Constants.BIRD_DISPLAY_WIDTH;
+        int height = Math.max(1, birdSprite.getHeight() * width / birdSprite.getWidth());
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(birdSprite, 0, 0, width, height, null);
+        g.dispose();
+
+        // Pale tint, keeping the sprite's shape and scaling its alpha down
+        int[] pixels = scaled.getRGB(0, 0, width, height, null, 0, width);
+        for (int i = 0; i < pixels.length; i++) {
+            int alpha = (int) ((pixels[i] >>> 24) * GHOST_ALPHA);
+            int grey = ((pixels[i] >> 16 & 0xff) + (pixels[i] >> 8 & 0xff) + (pixels[i] & 0xff)) / 3;
+            int r = ((GHOST_TINT >> 16 & 0xff) + grey) / 2;
+            int gr = ((GHOST_TINT >> 8 & 0xff) + grey) / 2;
+            int b = ((GHOST_TINT & 0xff) + grey) / 2;
+            pixels[i] = alpha << 24 | r << 16 | gr << 8 | b;
+        }
+        sprite = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        if (sprite.getType() == BufferedImage.TYPE_INT_ARGB) {
+            sprite.setRGB(0, 0, width, height, pixels, 0, width);
+        } else {
+            scaled.setRGB(0, 0, width, height, pixels, 0, width);
+            Graphics2D sg = sprite.createGraphics();
+            sg.drawImage(scaled, 0, 0, null);
+            sg.dispose();
+        }
+        spriteHeight = height;
+    }
+
+    /**
+     * Draw live, on-screen ghosts, one blit per occupied row band.
+     */
+    public void render(Graphics2D g) {
+        if (sprite == null || liveCount == 0) {
+            return;
+        }
+        if (++frameStamp == 0) {
+            Arrays.fill(bandStamp, 0);
+            frameStamp = 1;
+        }
+        int x = Constants.BIRD_START_X;
+        int bottom = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+        for (int k = 0; k < liveCount; k++) {
+            int gy = (int) y[live[k]];
+            if (gy + spriteHeight <= 0 || gy >= bottom) {
+                continue;
+            }
+            int band = Math.max(0, gy) / ROW_BAND;
+            if (bandStamp[band] == frameStamp) {
+                continue;
+            }
+            bandStamp[band] = frameStamp;
+            g.drawImage(sprite, x, band * ROW_BAND, null);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Benchmark: record synthetic runs on today's course with a noisy heuristic
+     * player, then time stepping and drawing them all offscreen.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.GhostBatch [ghosts] [--save]
+     */
+    public static void main(String[] args) {
+        int ghosts = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        boolean save = args.length > 1 && args[1].equals("--save");
+        long seed = RunRecording.dailySeed(LocalDate.now());
+
+        SplittableRandom random = new SplittableRandom(seed);
+        GameWorld world = GameWorld.forSkin(0);
+        Bird bird = world.getBird();
+        List<RunRecording> runs = new ArrayList<>(ghosts);
+        for (int r = 0; r < ghosts; r++) {
+            RunRecording run = new RunRecording(seed, 0, bird.getWidth(), bird.getHeight(), world.getPipeManager());
+            world.reset(seed);
+            int aim = random.nextInt(61) - 30;
+            while (!world.isDead() && world.getTick() < 20_000) {
+                Pipe next = world.nextPipe();
+                int target = (next != null ? next.getGapY() : Constants.WINDOW_HEIGHT / 2) + aim;
+                boolean flap = bird.getExactY() + bird.getHeight() / 2f > target
+                        && bird.getVelY() > 0 && random.nextInt(4) != 0;
+                run.record(flap);
+                world.step(flap);
+            }
+            run.finish(world.getScore(), (int) world.getTick());
+            runs.add(run);
+            if (save) {
+                try {
+                    run.save(RunRecording.dailyDirectory(LocalDate.now())
+                            .resolve("bench-" + r + RunRecording.EXTENSION));
+                } catch (IOException e) {
+                    System.err.println("Failed to save run: " + e.getMessage());
+                }
+            }
+        }
+
+        GhostBatch batch = new GhostBatch(runs);
+        batch.setSprite(null, GameWorld.skinSprite(0));
+        BufferedImage frame = new BufferedImage(Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        int frames = 0;
+        long start = System.nanoTime();
+        while (batch.getLiveCount() > 0 && frames < 3600) {
+            batch.step();
+            batch.render(g);
+            frames++;
+        }
+        double ms = (System.nanoTime() - start) / 1e6;
+        g.dispose();
+        System.out.printf("%d ghosts, %d frames: %.3f ms per step+render%n", ghosts, frames, ms / Math.max(1, frames));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.flappy;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HUD text in one font and colour, rasterized once into images.
+ *
+ * Switching fonts on a Graphics2D rebuilds its font state, and drawing text
+ * runs the glyph pipeline; both allocate every frame. Here the ten digits and
+ * any fixed label are drawn once (with an optional drop shadow offset by 2 px)
+ * and every later draw is a few unscaled blits.
+ */
+public class HudText {
+    private static final int SHADOW_OFFSET = 2;
+
+    private static final class Label {
+        final BufferedImage image;
+        final int advance;
+
+        Label(BufferedImage image, int advance) {
+            this.image = image;
+            this.advance = advance;
+        }
+    }
+
+    private final Font font;
+    private final Color color;
+    private final Color shadow; // null for no shadow
+    private final Label[] digits = new Label[10];
+    private final Map<String, Label> labels = new HashMap<>();
+    private int ascent;
+
+    public HudText(Font font, Color color, Color shadow) {
+        this.font = font;
+        this.color = color;
+        this.shadow = shadow;
+    }
+
+    /**
+     * Draw a fixed label with its baseline at y. Each distinct label is rasterized on first use.
+     */
+    public void drawLabel(Graphics2D g, String text, int x, int y) {
+        Label label = label(g.getDeviceConfiguration(), text);
+        g.drawImage(label.image, x, y - ascent, null);
+    }
+
+    /**
+     * Draw a non-negative number with its baseline at y; returns the x after the last digit.
+     */
+    public int drawNumber(Graphics2D g, int value, int x, int y) {
+        ensureDigits(g.getDeviceConfiguration());
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            Label digit = digits[value / divisor % 10];
+            g.drawImage(digit.image, x, y - ascent, null);
+            x += digit.advance;
+        }
+        return x;
+    }
+
+    /**
+     * Advance width of a label, rasterizing it if needed.
+     */
+    public int labelWidth(Graphics2D g, String text) {
+        return label(g.getDeviceConfiguration(), text).advance;
+    }
+
+    /**
+     * Advance width of a non-negative number.
+     */
+    public int numberWidth(Graphics2D g, int value) {
+        ensureDigits(g.getDeviceConfiguration());
+        int width = 0;
+        do {
+            width += digits[value % 10].advance;
+            value /= 10;
+        } while (value > 0);
+        return width;
+    }
+
+    private Label label(GraphicsConfiguration gc, String text) {
+        Label label = labels.get(text);
+        if (label == null) {
+            label = rasterize(gc, text);
+            labels.put(text, label);
+        }
+        return label;
+    }
+
+    private void ensureDigits(GraphicsConfiguration gc) {
+        if (digits[0] == null) {
+            for (int d = 0; d < 10; d++) {
+                digits[d] = rasterize(gc, String.valueOf((char) ('0' + d)));
+            }
+        }
+    }
+
+    private Label rasterize(GraphicsConfiguration gc, String text) {
+        BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D sg = scratch.createGraphics();
+        FontMetrics metrics = sg.getFontMetrics(font);
+        sg.dispose();
+        ascent = metrics.getAscent();
+        int advance = metrics.stringWidth(text);
+        int pad = shadow != null ? SHADOW_OFFSET : 0;
+        // A little slack on the right for glyphs that overhang their advance
+        int width = Math.max(1, advance + pad + metrics.getHeight() / 8);
+        int height = Math.max(1, metrics.getAscent() + metrics.getDescent() + pad);
+
+        BufferedImage image = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setFont(font);
+        if (shadow != null) {
+            g.setColor(shadow);
+            g.drawString(text, SHADOW_OFFSET, ascent + SHADOW_OFFSET);
+        }
+        g.setColor(color);
+        g.drawString(text, 0, ascent);
+        g.dispose();
+        return new Label(image, advance);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.flappy;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free queue of timestamped input events, filled from the EDT (or any other
+ * producer) and drained at the start of each simulation tick.
+ *
+ * Events are never dropped while fewer than CAPACITY are pending: at most one
+ * flap is applied per tick, and any extra flaps queued within the same tick
+ * carry over to the following ticks. The queue is a fixed ring of primitive
+ * slots (bounded multi-producer ring with per-slot sequence numbers), so
+ * offering and polling allocate nothing. There is a single consumer, the tick.
+ */
+public class InputQueue {
+    public static final int FLAP = 1;
+    public static final int PARTY_FLAP = 16; // party mode: PARTY_FLAP + player index
+
+    private static final int CAPACITY = 1024; // power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int ANY = -1;
+
+    /**
+     * A single input event. {@code when} uses the currentTimeMillis clock, like KeyEvent.getWhen().
+     * The queue reuses one instance: it is only valid until the next poll.
+     */
+    public static final class Event {
+        int type;
+        long when;
+    }
+
+    private final int[] types = new int[CAPACITY];
+    private final long[] whens = new long[CAPACITY];
+    // Slot i is free for position p when sequences[i] == p, and holds the event at p when it is p + 1
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final AtomicLong tail = new AtomicLong(); // next position to claim (producers)
+    private long head;                                // next position to read (consumer only)
+    private final Event polled = new Event();
+
+    public InputQueue() {
+        for (int i = 0; i < CAPACITY; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Enqueue an event with its original timestamp.
+     */
+    public void offer(int type, long when) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) position & MASK;
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (diff < 0) {
+                System.err.println("Input queue full, dropping event");
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+        types[index] = type;
+        whens[index] = when;
+        sequences.set(index, position + 1); // publish
+    }
+
+    /**
+     * Remove and return the next event of the given type that happened at or
+     * before tickTime, or null if none is due for this tick.
+     */
+    public Event poll(int type, long tickTime) {
+        return take(type, tickTime);
+    }
+
+    /**
+     * Remove and return the next event of any type that happened at or before
+     * tickTime, or null if none is due.
+     */
+    public Event poll(long tickTime) {
+        return take(ANY, tickTime);
+    }
+
+    /**
+     * Discard pending events (restart, game over).
+     */
+    public void clear() {
+        while (take(ANY, Long.MAX_VALUE) != null) {
+            // drain
+        }
+    }
+
+    private Event take(int type, long tickTime) {
+        int index = (int) head & MASK;
+        if (sequences.get(index) != head + 1) {
+            return null; // empty, or the next producer has not published yet
+        }
+        if (whens[index] > tickTime || (type != ANY && types[index] != type)) {
+            return null;
+        }
+        polled.type = types[index];
+        polled.when = whens[index];
+        sequences.set(index, head + CAPACITY); // free the slot for the next lap
+        head++;
+        return polled;
+    }
+}
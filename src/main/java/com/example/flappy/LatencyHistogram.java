@@ -0,0 +1,87 @@
+package com.example.flappy;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket latency histogram with 1 ms resolution, safe to record from one
+ * thread while another reads it.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 200; // 0-199 ms, last bucket also holds overflow
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record one sample in milliseconds.
+     */
+    public void record(long millis) {
+        int bucket = (int) Math.max(0, Math.min(BUCKETS - 1, millis));
+        counts.incrementAndGet(bucket);
+    }
+
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Latency in ms at the given percentile (0-100), or -1 with no samples.
+     */
+    public int percentile(double percent) {
+        long total = getCount();
+        if (total == 0) {
+            return -1;
+        }
+        long target = (long) Math.ceil(total * percent / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(1, target)) {
+                return i;
+            }
+        }
+        return BUCKETS - 1;
+    }
+
+    /**
+     * One-line summary for logs.
+     */
+    public String summary() {
+        return name + ": n=" + getCount() + " p50=" + percentile(50) + "ms p95=" + percentile(95)
+                + "ms p99=" + percentile(99) + "ms max=" + percentile(100) + "ms";
+    }
+
+    /**
+     * Write the summary and every non-empty bucket ("ms count") to a text file.
+     */
+    public void writeTo(Path file) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                writer.write("# " + summary());
+                writer.newLine();
+                for (int i = 0; i < BUCKETS; i++) {
+                    long count = counts.get(i);
+                    if (count > 0) {
+                        writer.write(i + (i == BUCKETS - 1 ? "+" : "") + " " + count);
+                        writer.newLine();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write " + name + " histogram: " + e.getMessage());
+        }
+    }
+}
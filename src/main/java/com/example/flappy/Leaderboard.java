@@ -0,0 +1,125 @@
+package com.example.flappy;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-memory top scores per day, overall and per skin, safe for any number of
+ * submitting threads.
+ *
+ * Each board keeps its best CAPACITY scores split across STRIPES independent
+ * stripes. A submission goes to a random stripe and only locks that one; once
+ * a stripe is full, scores below its lowest kept score are turned away by a
+ * volatile read without locking at all, which is the common case on a busy
+ * day. Every stripe holds the best of its share, so the best CAPACITY of the
+ * board are always among them; a query merges the stripes.
+ */
+public class Leaderboard {
+    public static final int CAPACITY = 100;  // most entries a query can return
+    public static final int ALL_SKINS = -1;
+    private static final int STRIPES = 16;
+
+    private static final Comparator<Entry> RANKING =
+            Comparator.comparingInt((Entry e) -> -e.score).thenComparingLong(e -> e.time);
+
+    /**
+     * One submitted run. Equal scores rank by who got there first.
+     */
+    public static final class Entry {
+        public final String day;
+        public final int skin;
+        public final int score;
+        public final String player;
+        public final long time;
+
+        public Entry(String day, int skin, int score, String player, long time) {
+            this.day = day;
+            this.skin = skin;
+            this.score = score;
+            this.player = player;
+            this.time = time;
+        }
+    }
+
+    private static final class Stripe {
+        private final Entry[] entries = new Entry[CAPACITY]; // best first
+        private int size;
+        private volatile int floor = Integer.MIN_VALUE;      // lowest kept score once full
+
+        boolean mightKeep(int score) {
+            return score > floor;
+        }
+
+        synchronized void offer(Entry entry) {
+            if (size == CAPACITY && RANKING.compare(entry, entries[size - 1]) >= 0) {
+                return;
+            }
+            int at = size < CAPACITY ? size++ : size - 1;
+            while (at > 0 && RANKING.compare(entry, entries[at - 1]) < 0) {
+                entries[at] = entries[at - 1];
+                at--;
+            }
+            entries[at] = entry;
+            if (size == CAPACITY) {
+                // Ties with the floor can't get in either (they came later)
+                floor = entries[size - 1].score;
+            }
+        }
+
+        synchronized int copyTo(Entry[] out, int at) {
+            System.arraycopy(entries, 0, out, at, size);
+            return at + size;
+        }
+    }
+
+    private static final class Board {
+        private final Stripe[] stripes = new Stripe[STRIPES];
+
+        Board() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe();
+            }
+        }
+
+        void offer(Entry entry) {
+            Stripe stripe = stripes[ThreadLocalRandom.current().nextInt(STRIPES)];
+            if (stripe.mightKeep(entry.score)) {
+                stripe.offer(entry);
+            }
+        }
+
+        Entry[] top(int n) {
+            Entry[] all = new Entry[STRIPES * CAPACITY];
+            int count = 0;
+            for (Stripe stripe : stripes) {
+                count = stripe.copyTo(all, count);
+            }
+            Arrays.sort(all, 0, count, RANKING);
+            return Arrays.copyOf(all, Math.min(n, count));
+        }
+    }
+
+    private final ConcurrentHashMap<String, Board> boards = new ConcurrentHashMap<>();
+
+    /**
+     * Add a run to its day's overall board and its skin's board.
+     */
+    public void submit(Entry entry) {
+        board(entry.day, ALL_SKINS).offer(entry);
+        board(entry.day, entry.skin).offer(entry);
+    }
+
+    /**
+     * Best n runs (at most CAPACITY) of a day, for one skin or ALL_SKINS.
+     */
+    public Entry[] top(String day, int skin, int n) {
+        Board board = boards.get(day + "/" + skin);
+        return board == null ? new Entry[0] : board.top(Math.min(n, CAPACITY));
+    }
+
+    private Board board(String day, int skin) {
+        return boards.computeIfAbsent(day + "/" + skin, key -> new Board());
+    }
+}
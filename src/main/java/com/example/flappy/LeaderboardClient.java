@@ -0,0 +1,215 @@
+package com.example.flappy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Posts finished runs to a LeaderboardServer in the background, so a slow
+ * or unreachable leaderboard never stalls the game.
+ */
+public class LeaderboardClient {
+    private static final int TIMEOUT_MILLIS = 2000;
+
+    private final String baseUrl;
+    private final String player;
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Leaderboard-Client");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LeaderboardClient(String hostPort, String player) {
+        this.baseUrl = "http://" + hostPort;
+        this.player = player;
+    }
+
+    /**
+     * Client for flappy.leaderboard (host:port), posting as flappy.player
+     * (default the machine name), or null when not configured.
+     */
+    public static LeaderboardClient fromSystemProperties() {
+        String address = System.getProperty("flappy.leaderboard");
+        if (address == null) {
+            return null;
+        }
+        String machine = System.getenv().getOrDefault("COMPUTERNAME", System.getenv().getOrDefault("HOSTNAME", "cabinet"));
+        return new LeaderboardClient(address.trim(), System.getProperty("flappy.player", machine));
+    }
+
+    /**
+     * Queue a finished run for posting; failures are logged and dropped.
+     */
+    public void submit(int score, int skin) {
+        String form = "score=" + score + "&skin=" + skin + "&player=" + URLEncoder.encode(player, StandardCharsets.UTF_8);
+        sender.execute(() -> {
+            try {
+                int status = post(baseUrl + "/scores", form);
+                if (status != 204) {
+                    System.err.println("Leaderboard rejected score " + score + ": HTTP " + status);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to post score to leaderboard: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Look up today's best score at the venue in the background and pass it to
+     * onResult (on the sender thread); nothing is called if the lookup fails.
+     */
+    public void fetchBest(IntConsumer onResult) {
+        sender.execute(() -> {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + "/top?n=1").openConnection();
+                connection.setConnectTimeout(TIMEOUT_MILLIS);
+                connection.setReadTimeout(TIMEOUT_MILLIS);
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line = reader.readLine(); // rank TAB score TAB player TAB skin
+                    onResult.accept(line == null ? 0 : Integer.parseInt(line.split("\t")[1]));
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Failed to read leaderboard: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Send anything still queued (up to a couple of seconds), then stop.
+     */
+    public void shutdown() {
+        sender.shutdown();
+        try {
+            sender.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static int post(String url, String form) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(form.getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        // Drain the body so the connection goes back to the keep-alive pool
+        InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (body != null) {
+            try (body) {
+                body.readAllBytes();
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Load test: threads posting random scores as fast as they can, against a
+     * running server or (with "local") one started in this process on a
+     * temporary journal. Prints submissions per second and the top five.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.LeaderboardClient [host:port | local] [threads] [seconds]
+     */
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "local";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        LeaderboardServer server = null;
+        Path journal = null;
+        if (target.equals("local")) {
+            journal = Files.createTempFile("leaderboard", ".log");
+            server = new LeaderboardServer(journal);
+            server.start(new InetSocketAddress("127.0.0.1", 0), Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+            target = "127.0.0.1:" + server.getAddress().getPort();
+        }
+        String host = target;
+        InetSocketAddress address = (InetSocketAddress) EnvServer.parseAddress(target);
+
+        AtomicLong accepted = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            String name = "load-" + i;
+            workers[i] = new Thread(() -> {
+                // A bare keep-alive socket, so the generator's own HTTP stack doesn't eat the CPU being measured
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                ByteBuffer response = ByteBuffer.allocate(4096);
+                try (SocketChannel channel = SocketChannel.open(address)) {
+                    while (System.nanoTime() < end) {
+                        String form = "score=" + random.nextInt(200) + "&skin=" + random.nextInt(3) + "&player=" + name;
+                        String request = "POST /scores HTTP/1.1\r\nHost: " + host
+                                + "\r\nContent-Type: application/x-www-form-urlencoded\r\nContent-Length: "
+                                + form.length() + "\r\n\r\n" + form;
+                        channel.write(ByteBuffer.wrap(request.getBytes(StandardCharsets.US_ASCII)));
+                        if (readStatus(channel, response) == 204) {
+                            accepted.incrementAndGet();
+                        } else {
+                            failed.incrementAndGet();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.err.println(name + " failed: " + e.getMessage());
+                    failed.incrementAndGet();
+                }
+            });
+            workers[i].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        System.out.printf("%d threads: %.0f submissions/s (%d accepted, %d failed)%n",
+                threads, accepted.get() / (double) seconds, accepted.get(), failed.get());
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://" + target + "/top?n=5").openConnection();
+        try (InputStream in = connection.getInputStream()) {
+            System.out.print(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        if (server != null) {
+            server.stop();
+            System.out.println("Journal: " + Files.size(journal) + " bytes");
+            Files.deleteIfExists(journal);
+        }
+    }
+
+    /**
+     * Read one bodiless response (204) and return its status code.
+     */
+    private static int readStatus(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (true) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("connection closed");
+            }
+            int end = buffer.position();
+            if (end >= 4 && buffer.get(end - 4) == '\r' && buffer.get(end - 3) == '\n'
+                    && buffer.get(end - 2) == '\r' && buffer.get(end - 1) == '\n') {
+                // "HTTP/1.1 204 ..."
+                return (buffer.get(9) - '0') * 100 + (buffer.get(10) - '0') * 10 + (buffer.get(11) - '0');
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.flappy;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Venue leaderboard: cabinets on the LAN post finished runs, score screens
+ * read the day's best, overall or per skin.
+ *
+ *   POST /scores  form fields score, skin, player, optional day (yyyy-mm-dd, default today) -> 204
+ *   GET  /top?day=&skin=&n=   text/plain, one "rank TAB score TAB player TAB skin" line per run
+ *
+ * Scores are ranked in a Leaderboard in memory. Every accepted run is also
+ * appended to a journal file by a single writer thread (batched, written
+ * whenever the queue runs dry), and the journal is replayed on startup.
+ * Requests are served by the JDK's HttpServer on a fixed thread pool.
+ *
+ * A failed write is rolled back to the last whole batch and retried after a
+ * pause, so a full or flaky disk delays the journal but never ends it. If
+ * the queue stays full for JOURNAL_WAIT_MILLIS, the run is refused with 503
+ * rather than holding an HTTP thread.
+ *
+ * Usage: java -cp flappy.jar com.example.flappy.LeaderboardServer [host:port] [journal]
+ */
+public class LeaderboardServer {
+    private static final int MAX_SCORE = 1_000_000;
+    private static final int MAX_PLAYER_LENGTH = 32;
+    private static final int JOURNAL_QUEUE = 65536;
+    private static final int JOURNAL_WAIT_MILLIS = 100;
+    private static final int JOURNAL_RETRY_MILLIS = 1000;
+    private static final Leaderboard.Entry STOP = new Leaderboard.Entry("", 0, 0, "", 0); // ends the writer
+    private static final Pattern LINE_BREAKS = Pattern.compile("[\\t\\r\\n]");
+
+    private final Leaderboard leaderboard = new Leaderboard();
+    private final BlockingQueue<Leaderboard.Entry> journalQueue = new ArrayBlockingQueue<>(JOURNAL_QUEUE);
+    private final Path journal;
+    private HttpServer server;
+    private ExecutorService pool;
+    private Thread journalWriter;
+
+    public LeaderboardServer(Path journal) {
+        this.journal = journal;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String address = args.length > 0 ? args[0] : "0.0.0.0:7900";
+        Path journal = args.length > 1 ? Paths.get(args[1])
+                : Paths.get(System.getProperty("user.home"), Constants.HIGH_SCORE_DIR, "leaderboard.log");
+        LeaderboardServer server = new LeaderboardServer(journal);
+        server.start((InetSocketAddress) EnvServer.parseAddress(address),
+                Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    }
+
+    /**
+     * Replay the journal, then serve on address with the given number of threads.
+     */
+    public void start(InetSocketAddress address, int threads) throws IOException {
+        int replayed = replayJournal();
+        Files.createDirectories(journal.toAbsolutePath().getParent());
+        FileChannel channel = openJournal();
+        journalWriter = new Thread(() -> writeJournal(channel), "Leaderboard-Journal");
+        journalWriter.setDaemon(true); // stop() waits for it; a dead disk must not keep the JVM up
+        journalWriter.start();
+
+        server = HttpServer.create(address, 1024);
+        pool = Executors.newFixedThreadPool(threads);
+        server.setExecutor(pool);
+        server.createContext("/scores", this::handleSubmit);
+        server.createContext("/top", this::handleTop);
+        server.start();
+        System.out.println("Leaderboard on " + server.getAddress() + " (" + replayed + " runs from " + journal + ")");
+    }
+
+    /**
+     * Stop serving and write out the journal: runs still being submitted
+     * finish first, then the writer drains the queue up to a stop entry.
+     */
+    public void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        pool.shutdown();
+        try {
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+            journalQueue.put(STOP);
+            journalWriter.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (journalWriter.isAlive()) {
+            System.err.println("Leaderboard journal still failing; " + journalQueue.size() + " runs not written");
+        }
+        server = null;
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handleSubmit(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "POST a score\n");
+                return;
+            }
+            Leaderboard.Entry entry;
+            try (InputStream body = exchange.getRequestBody()) {
+                entry = parseEntry(parseForm(new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+            boolean queued;
+            try {
+                queued = journalQueue.offer(entry, JOURNAL_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queued = false;
+            }
+            if (!queued) {
+                respond(exchange, 503, "journal is behind, try again later\n");
+                return;
+            }
+            leaderboard.submit(entry);
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+
+    private void handleTop(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+            Leaderboard.Entry[] top;
+            try {
+                String day = query.containsKey("day") ? LocalDate.parse(query.get("day")).toString()
+                        : LocalDate.now().toString();
+                int skin = query.containsKey("skin") ? Integer.parseInt(query.get("skin")) : Leaderboard.ALL_SKINS;
+                int n = query.containsKey("n") ? Integer.parseInt(query.get("n")) : 10;
+                top = leaderboard.top(day, skin, Math.max(0, n));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < top.length; i++) {
+                text.append(i + 1).append('\t').append(top[i].score).append('\t')
+                        .append(top[i].player).append('\t').append(top[i].skin).append('\n');
+            }
+            respond(exchange, 200, text.toString());
+        }
+    }
+
+    private static Leaderboard.Entry parseEntry(Map<String, String> form) {
+        int score = parseInt(form.get("score"), "score");
+        int skin = parseInt(form.get("skin"), "skin");
+        if (score < 0 || score > MAX_SCORE || skin < 0 || skin > 255) {
+            throw new IllegalArgumentException("score or skin out of range");
+        }
+        String player = LINE_BREAKS.matcher(form.getOrDefault("player", "anonymous")).replaceAll(" ").trim();
+        if (player.isEmpty() || player.length() > MAX_PLAYER_LENGTH) {
+            throw new IllegalArgumentException("player must be 1-" + MAX_PLAYER_LENGTH + " characters");
+        }
+        String day = form.containsKey("day") ? LocalDate.parse(form.get("day")).toString() : LocalDate.now().toString();
+        return new Leaderboard.Entry(day, skin, score, player, System.currentTimeMillis());
+    }
+
+    private static int parseInt(String value, String name) {
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + name);
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad " + name + ": " + value);
+        }
+    }
+
+    private static Map<String, String> parseForm(String encoded) {
+        Map<String, String> fields = new HashMap<>();
+        if (encoded == null || encoded.isEmpty()) {
+            return fields;
+        }
+        for (String pair : encoded.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                fields.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return fields;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Journal lines: time TAB day TAB skin TAB score TAB player.
+     */
+    private int replayJournal() {
+        if (!Files.exists(journal)) {
+            return 0;
+        }
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 5);
+                if (fields.length < 5) {
+                    continue; // torn last line after a crash
+                }
+                try {
+                    leaderboard.submit(new Leaderboard.Entry(fields[1], Integer.parseInt(fields[2]),
+                            Integer.parseInt(fields[3]), fields[4], Long.parseLong(fields[0])));
+                    count++;
+                } catch (NumberFormatException e) {
+                    System.err.println("Skipping bad journal line: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read leaderboard journal: " + e.getMessage());
+        }
+        return count;
+    }
+
+    private FileChannel openJournal() throws IOException {
+        return FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Append queued runs until the stop entry. Each batch is written whole or
+     * not at all: after a failure the file is cut back to the last batch that
+     * made it, reopened and the batch retried, so lines are never torn or doubled.
+     */
+    private void writeJournal(FileChannel channel) {
+        List<Leaderboard.Entry> batch = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        boolean stopping = false;
+        long written = -1; // journal size after the last whole batch
+        while (!stopping || !batch.isEmpty()) {
+            if (batch.isEmpty()) {
+                batch.add(takeUninterruptibly());
+                journalQueue.drainTo(batch);
+                if (batch.remove(STOP)) {
+                    stopping = true;
+                }
+                text.setLength(0);
+                for (Leaderboard.Entry entry : batch) {
+                    text.append(entry.time).append('\t').append(entry.day).append('\t').append(entry.skin)
+                            .append('\t').append(entry.score).append('\t').append(entry.player).append('\n');
+                }
+            }
+            try {
+                if (channel == null) {
+                    channel = openJournal();
+                }
+                if (written < 0) {
+                    written = channel.size();
+                }
+                channel.truncate(written); // drops whatever a failed attempt left behind
+                channel.position(written);
+                ByteBuffer bytes = StandardCharsets.UTF_8.encode(text.toString());
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+                written = channel.position();
+                batch.clear();
+            } catch (IOException e) {
+                System.err.println("Leaderboard journal write failed, retrying " + batch.size() + " runs: " + e.getMessage());
+                closeQuietly(channel);
+                channel = null;
+                sleepUninterruptibly(JOURNAL_RETRY_MILLIS);
+            }
+        }
+        closeQuietly(channel);
+    }
+
+    private Leaderboard.Entry takeUninterruptibly() {
+        while (true) {
+            try {
+                return journalQueue.take();
+            } catch (InterruptedException e) {
+                // only the stop entry ends the writer
+            }
+        }
+    }
+
+    private static void sleepUninterruptibly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            // retry now
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close leaderboard journal: " + e.getMessage());
+            }
+        }
+    }
+}
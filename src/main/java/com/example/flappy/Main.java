@@ -8,6 +8,7 @@ import javax.swing.SwingUtilities;
  */
 public class Main {
     public static void main(String[] args) {
+        StartupProbe.mark("main");
         SwingUtilities.invokeLater(() -> {
             try {
                 new GameFrame();
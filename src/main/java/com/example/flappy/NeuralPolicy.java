@@ -0,0 +1,74 @@
+package com.example.flappy;
+
+import java.util.SplittableRandom;
+
+/**
+ * Small feed-forward policy (inputs -> tanh hidden layer -> flap/no-flap) whose
+ * weights are evolved by {@link NeuroTrainer}. The genome is a flat float array.
+ */
+public class NeuralPolicy {
+    public static final int INPUTS = 5;  // bias, y, velY, distance to next pipe, offset to gap centre
+    public static final int HIDDEN = 8;
+    public static final int GENOME_LENGTH = HIDDEN * INPUTS + HIDDEN + 1;
+
+    private final float[] genome;
+    private final float[] input = new float[INPUTS];
+    private final float[] hidden = new float[HIDDEN];
+
+    public NeuralPolicy(float[] genome) {
+        if (genome.length != GENOME_LENGTH) {
+            throw new IllegalArgumentException("Genome length " + genome.length + ", expected " + GENOME_LENGTH);
+        }
+        this.genome = genome;
+    }
+
+    /**
+     * Genome with weights drawn uniformly from [-1, 1).
+     */
+    public static float[] randomGenome(SplittableRandom random) {
+        float[] genome = new float[GENOME_LENGTH];
+        for (int i = 0; i < genome.length; i++) {
+            genome[i] = (float) (random.nextDouble() * 2 - 1);
+        }
+        return genome;
+    }
+
+    public float[] getGenome() {
+        return genome;
+    }
+
+    /**
+     * Decide whether to flap from the current world state.
+     */
+    public boolean shouldFlap(GameWorld world) {
+        Bird bird = world.getBird();
+        Pipe next = world.nextPipe();
+        float playHeight = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+        float birdCentre = bird.getExactY() + bird.getHeight() / 2f;
+
+        input[0] = 1f;
+        input[1] = bird.getExactY() / playHeight;
+        input[2] = bird.getVelY() / Constants.TERMINAL_VELOCITY;
+        if (next != null) {
+            input[3] = (next.getX() - bird.getX()) / (float) Constants.WINDOW_WIDTH;
+            input[4] = (next.getGapY() - birdCentre) / playHeight;
+        } else {
+            input[3] = 1f;
+            input[4] = (playHeight / 2 - birdCentre) / playHeight;
+        }
+
+        int w = 0;
+        for (int h = 0; h < HIDDEN; h++) {
+            float sum = 0;
+            for (int i = 0; i < INPUTS; i++) {
+                sum += genome[w++] * input[i];
+            }
+            hidden[h] = (float) Math.tanh(sum);
+        }
+        float output = genome[w++];
+        for (int h = 0; h < HIDDEN; h++) {
+            output += genome[w++] * hidden[h];
+        }
+        return output > 0;
+    }
+}
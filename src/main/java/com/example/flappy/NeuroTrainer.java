@@ -0,0 +1,317 @@
+package com.example.flappy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Headless neuroevolution trainer. Each generation evaluates the whole population
+ * in parallel on a ForkJoinPool; every leaf task runs its own GameWorld with no
+ * rendering and draws its pipe seeds from its own split of a SplittableRandom.
+ * Birds are the real skins at display size with their pixel masks: one skin,
+ * or with "all" each episode flies the next skin in turn. The population is
+ * checkpointed to disk so training can be resumed.
+ *
+ * Usage:
+ *   java -cp flappy.jar com.example.flappy.NeuroTrainer [--population 256] [--generations 100]
+ *       [--episodes 3] [--max-ticks 20000] [--skin 1|2|3|all] [--threads N] [--checkpoint path] [--scaling]
+ *
+ * --scaling evaluates one generation with 1, 2, 4 ... N threads and prints episodes/second.
+ */
+public class NeuroTrainer {
+    private static final int CHECKPOINT_MAGIC = 0x46424E45; // "FBNE"
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final int LEAF_SIZE = 4;           // policies per leaf task
+    private static final int POINT_REWARD = 1000;     // fitness per pipe, on top of ticks survived
+    private static final float MUTATION_SIGMA = 0.15f;
+    private static final float MUTATION_RATE = 0.2f;
+
+    private final int episodes;
+    private final int maxTicks;
+    private final int skin; // 0-2, or -1 to rotate through every skin
+    private final SplittableRandom random;
+    private float[][] population;
+    private final float[] fitness;
+    private int generation;
+
+    /**
+     * @param skin skin to train for (0-2), or -1 to evaluate every policy on all of them
+     */
+    public NeuroTrainer(int populationSize, int episodes, int maxTicks, int skin, long seed) {
+        this.episodes = episodes;
+        this.maxTicks = maxTicks;
+        this.skin = skin;
+        this.random = new SplittableRandom(seed);
+        this.population = new float[populationSize][];
+        this.fitness = new float[populationSize];
+        for (int i = 0; i < populationSize; i++) {
+            population[i] = NeuralPolicy.randomGenome(random);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int populationSize = 256;
+        int generations = 100;
+        int episodes = 3;
+        int maxTicks = 20_000;
+        int skin = -1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path checkpoint = Paths.get(System.getProperty("user.home"), Constants.HIGH_SCORE_DIR, "trainer.ckpt");
+        boolean scaling = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--population": populationSize = Integer.parseInt(args[++i]); break;
+                case "--generations": generations = Integer.parseInt(args[++i]); break;
+                case "--episodes": episodes = Integer.parseInt(args[++i]); break;
+                case "--max-ticks": maxTicks = Integer.parseInt(args[++i]); break;
+                case "--skin": skin = args[++i].equals("all") ? -1 : Integer.parseInt(args[i]) - 1; break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--checkpoint": checkpoint = Paths.get(args[++i]); break;
+                case "--scaling": scaling = true; break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        NeuroTrainer trainer = new NeuroTrainer(populationSize, episodes, maxTicks, skin, System.nanoTime());
+        if (scaling) {
+            trainer.measureScaling(threads);
+            return;
+        }
+        if (Files.exists(checkpoint)) {
+            trainer.load(checkpoint);
+            System.out.println("Resumed from " + checkpoint + " at generation " + trainer.generation);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (int g = 0; g < generations; g++) {
+                long start = System.nanoTime();
+                trainer.evaluate(pool);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                float best = trainer.bestFitness();
+                System.out.printf("gen %d  best %.0f (%d pipes)  mean %.0f  %.0f episodes/s on %d threads%n",
+                        trainer.generation, best, (int) (best / POINT_REWARD), trainer.meanFitness(),
+                        populationSize * episodes / seconds, threads);
+                trainer.evolve();
+                trainer.save(checkpoint);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Evaluate every policy; fitness is averaged over the configured episodes.
+     */
+    public void evaluate(ForkJoinPool pool) {
+        pool.invoke(new EvaluateTask(0, population.length, random.split()));
+    }
+
+    /**
+     * Evaluates population[from, to), splitting in half until leaves are small.
+     */
+    private final class EvaluateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final SplittableRandom taskRandom;
+
+        EvaluateTask(int from, int to, SplittableRandom taskRandom) {
+            this.from = from;
+            this.to = to;
+            this.taskRandom = taskRandom;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                GameWorld[] worlds = new GameWorld[skin < 0 ? GameWorld.SKINS : 1];
+                for (int w = 0; w < worlds.length; w++) {
+                    worlds[w] = GameWorld.forSkin(skin < 0 ? w : skin);
+                }
+                for (int i = from; i < to; i++) {
+                    NeuralPolicy policy = new NeuralPolicy(population[i]);
+                    long total = 0;
+                    for (int e = 0; e < episodes; e++) {
+                        total += runEpisode(worlds[e % worlds.length], policy, taskRandom.nextLong());
+                    }
+                    fitness[i] = (float) total / episodes;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new EvaluateTask(from, mid, taskRandom.split()), new EvaluateTask(mid, to, taskRandom));
+        }
+    }
+
+    private long runEpisode(GameWorld world, NeuralPolicy policy, long seed) {
+        world.reset(seed);
+        while (!world.isDead() && world.getTick() < maxTicks) {
+            world.step(policy.shouldFlap(world));
+        }
+        return world.getTick() + (long) world.getScore() * POINT_REWARD;
+    }
+
+    /**
+     * Build the next generation: the top 10% carry over unchanged, the rest are
+     * uniform crossovers of tournament-selected parents with gaussian mutation.
+     */
+    public void evolve() {
+        int size = population.length;
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(fitness[b], fitness[a]));
+
+        int elites = Math.max(1, size / 10);
+        float[][] next = new float[size][];
+        for (int i = 0; i < elites; i++) {
+            next[i] = population[order[i]];
+        }
+        for (int i = elites; i < size; i++) {
+            float[] a = population[tournament()];
+            float[] b = population[tournament()];
+            float[] child = new float[NeuralPolicy.GENOME_LENGTH];
+            for (int w = 0; w < child.length; w++) {
+                child[w] = random.nextBoolean() ? a[w] : b[w];
+                if (random.nextDouble() < MUTATION_RATE) {
+                    child[w] += (float) (gaussian() * MUTATION_SIGMA);
+                }
+            }
+            next[i] = child;
+        }
+
+        // Keep the fitness array aligned with the carried-over elites until re-evaluated
+        float[] eliteFitness = new float[elites];
+        for (int i = 0; i < elites; i++) {
+            eliteFitness[i] = fitness[order[i]];
+        }
+        Arrays.fill(fitness, 0);
+        System.arraycopy(eliteFitness, 0, fitness, 0, elites);
+
+        population = next;
+        generation++;
+    }
+
+    private int tournament() {
+        int best = random.nextInt(population.length);
+        for (int k = 0; k < 2; k++) {
+            int other = random.nextInt(population.length);
+            if (fitness[other] > fitness[best]) {
+                best = other;
+            }
+        }
+        return best;
+    }
+
+    private double gaussian() {
+        // Box-Muller; SplittableRandom has no nextGaussian in Java 17
+        double u = 1.0 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    public float bestFitness() {
+        float best = Float.NEGATIVE_INFINITY;
+        for (float f : fitness) {
+            best = Math.max(best, f);
+        }
+        return best;
+    }
+
+    public float meanFitness() {
+        double sum = 0;
+        for (float f : fitness) {
+            sum += f;
+        }
+        return (float) (sum / fitness.length);
+    }
+
+    /**
+     * Evaluate the current population with 1, 2, 4 ... maxThreads threads and
+     * print episodes/second and speed-up relative to one thread.
+     */
+    public void measureScaling(int maxThreads) {
+        double baseline = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                evaluate(pool); // warm-up
+                long start = System.nanoTime();
+                evaluate(pool);
+                double rate = population.length * episodes / ((System.nanoTime() - start) / 1e9);
+                if (threads == 1) {
+                    baseline = rate;
+                }
+                System.out.printf("%2d threads: %.0f episodes/s (%.2fx)%n", threads, rate, rate / baseline);
+            } finally {
+                pool.shutdown();
+            }
+            if (threads == maxThreads) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Write generation, fitness and genomes to a temp file, then move it into place.
+     */
+    public void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeInt(generation);
+            out.writeInt(population.length);
+            out.writeInt(NeuralPolicy.GENOME_LENGTH);
+            for (int i = 0; i < population.length; i++) {
+                out.writeFloat(fitness[i]);
+                for (float w : population[i]) {
+                    out.writeFloat(w);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restore a checkpoint written by save(). The population size must match.
+     */
+    public void load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                throw new IOException("Not a trainer checkpoint: " + file);
+            }
+            int savedGeneration = in.readInt();
+            int size = in.readInt();
+            int genomeLength = in.readInt();
+            if (size != population.length || genomeLength != NeuralPolicy.GENOME_LENGTH) {
+                throw new IOException("Checkpoint shape " + size + "x" + genomeLength + " does not match "
+                        + population.length + "x" + NeuralPolicy.GENOME_LENGTH);
+            }
+            for (int i = 0; i < size; i++) {
+                fitness[i] = in.readFloat();
+                for (int w = 0; w < genomeLength; w++) {
+                    population[i][w] = in.readFloat();
+                }
+            }
+            generation = savedGeneration;
+        }
+    }
+}
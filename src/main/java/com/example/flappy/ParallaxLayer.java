@@ -0,0 +1,161 @@
+package com.example.flappy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Polygon;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * One scrolling scenery band between the sky and the ground.
+ *
+ * The band is painted once into a tile exactly one window wide whose content
+ * wraps seamlessly at the edges, so any scroll offset is covered by at most two
+ * unscaled blits. The offset is a fraction of the distance the pipes have
+ * scrolled: far layers move slowly, near layers almost as fast as the pipes.
+ */
+public class ParallaxLayer {
+    public enum Kind { CLOUDS, HILLS, TREES }
+
+    private final Kind kind;
+    private final float speed;  // fraction of the pipes' scroll
+    private final int top;      // logical y of the band; hills and trees sit on the ground instead
+    private final int height;   // logical band height
+    private final long seed;
+
+    private BufferedImage tile;
+    private int deviceTop;
+
+    public ParallaxLayer(Kind kind, float speed, int top, int height, long seed) {
+        this.kind = kind;
+        this.speed = speed;
+        this.top = top;
+        this.height = height;
+        this.seed = seed;
+    }
+
+    /**
+     * The default stack, back to front: clouds, far hills, near trees.
+     */
+    public static ParallaxLayer[] defaults() {
+        return new ParallaxLayer[] {
+                new ParallaxLayer(Kind.CLOUDS, 0.1f, 40, 200, 1),
+                new ParallaxLayer(Kind.HILLS, 0.25f, 0, 220, 2),
+                new ParallaxLayer(Kind.TREES, 0.5f, 0, 150, 3)
+        };
+    }
+
+    /**
+     * Paint the tile at device size. width is the device window width.
+     */
+    public void build(GraphicsConfiguration gc, int width, double scaleY) {
+        int tileHeight = Math.max(1, (int) Math.round(height * scaleY));
+        int groundY = (int) Math.round((Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT) * scaleY);
+        deviceTop = kind == Kind.CLOUDS ? (int) Math.round(top * scaleY) : groundY - tileHeight;
+
+        tile = gc != null
+                ? gc.createCompatibleImage(width, tileHeight, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, tileHeight, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = tile.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Random random = new Random(seed);
+        switch (kind) {
+            case CLOUDS:
+                paintClouds(g, random, width, tileHeight);
+                break;
+            case HILLS:
+                paintHills(g, random, width, tileHeight);
+                break;
+            default:
+                paintTrees(g, random, width, tileHeight);
+                break;
+        }
+        g.dispose();
+    }
+
+    /**
+     * Draw the band scrolled for the given pipe distance, in device coordinates.
+     */
+    public void render(Graphics2D g, long distance, double scaleX) {
+        int width = tile.getWidth();
+        int offset = (int) (Math.round(distance * speed * scaleX) % width);
+        g.drawImage(tile, -offset, deviceTop, null);
+        if (offset > 0) {
+            g.drawImage(tile, width - offset, deviceTop, null);
+        }
+    }
+
+    private static void paintClouds(Graphics2D g, Random random, int width, int height) {
+        g.setColor(new Color(255, 255, 255, 170));
+        int clouds = Math.max(3, width / 220);
+        for (int i = 0; i < clouds; i++) {
+            int cx = random.nextInt(width);
+            int cy = height / 5 + random.nextInt(Math.max(1, height * 3 / 5));
+            int w = height / 2 + random.nextInt(Math.max(1, height / 2));
+            for (int puff = 0; puff < 4; puff++) {
+                int px = cx + (puff - 2) * w / 4;
+                int py = cy - random.nextInt(Math.max(1, w / 5));
+                int pw = w / 2 + random.nextInt(Math.max(1, w / 4));
+                drawWrapped(g, width, px - pw / 2, py - pw / 4, pw, pw / 2, true);
+            }
+        }
+    }
+
+    private static void paintHills(Graphics2D g, Random random, int width, int height) {
+        // Sum of sines with whole periods across the tile, so the ridge wraps seamlessly
+        int[] harmonics = {1, 2, 3, 5};
+        double[] phases = new double[harmonics.length];
+        for (int i = 0; i < phases.length; i++) {
+            phases[i] = random.nextDouble() * Math.PI * 2;
+        }
+        Polygon ridge = new Polygon();
+        ridge.addPoint(0, height);
+        for (int x = 0; x <= width; x += 4) {
+            double t = (double) x / width * Math.PI * 2;
+            double h = 0;
+            for (int i = 0; i < harmonics.length; i++) {
+                h += Math.sin(t * harmonics[i] + phases[i]) / (i + 1);
+            }
+            ridge.addPoint(x, (int) (height * (0.45 - h * 0.22)));
+        }
+        ridge.addPoint(width, height);
+        g.setColor(new Color(110, 150, 140));
+        g.fillPolygon(ridge);
+    }
+
+    private static void paintTrees(Graphics2D g, Random random, int width, int height) {
+        Color trunk = new Color(90, 65, 40);
+        Color leaves = new Color(45, 110, 60);
+        int trees = Math.max(4, width / 90);
+        for (int i = 0; i < trees; i++) {
+            int x = random.nextInt(width);
+            int treeHeight = height / 2 + random.nextInt(Math.max(1, height / 2));
+            int crown = treeHeight * 2 / 3;
+            g.setColor(trunk);
+            drawWrapped(g, width, x - crown / 10, height - treeHeight / 3, Math.max(2, crown / 5), treeHeight / 3, false);
+            g.setColor(leaves);
+            drawWrapped(g, width, x - crown / 2, height - treeHeight, crown, crown, true);
+        }
+    }
+
+    /**
+     * Fill an oval or rectangle, repeating it one tile width left or right if it
+     * crosses an edge, so the tile wraps without a seam.
+     */
+    private static void drawWrapped(Graphics2D g, int tileWidth, int x, int y, int w, int h, boolean oval) {
+        for (int shift = -tileWidth; shift <= tileWidth; shift += tileWidth) {
+            int sx = x + shift;
+            if (sx + w < 0 || sx > tileWidth) {
+                continue;
+            }
+            if (oval) {
+                g.fillOval(sx, y, w, h);
+            } else {
+                g.fillRect(sx, y, w, h);
+            }
+        }
+    }
+}
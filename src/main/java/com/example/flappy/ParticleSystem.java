@@ -0,0 +1,285 @@
+package com.example.flappy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Fixed-capacity particle pool for flap feathers, score sparkles and crash debris.
+ *
+ * Particles are struct-of-arrays primitives; live ones are packed at the front
+ * and a dead particle is replaced by the last live one, so updates walk one
+ * dense range. Each kind has a few pre-tinted sprites at decreasing opacity,
+ * picked by remaining life, so nothing is allocated per particle or per frame.
+ *
+ * The live cap starts at the pool capacity and shrinks when drawing particles
+ * takes more than its share of the frame, growing back slowly when there is room.
+ * Capacity comes from flappy.particles (default 65536, 0 disables effects).
+ */
+public class ParticleSystem {
+    public static final int FEATHER = 0;
+    public static final int SPARKLE = 1;
+    public static final int DEBRIS = 2;
+    private static final int KINDS = 3;
+    private static final int FADE_LEVELS = 4;
+
+    // Adaptive cap tuning
+    private static final long RENDER_BUDGET_NANOS = 3_000_000; // share of the 16.7 ms frame
+    private static final int MIN_CAP = 256;
+    private static final int GROW_FRAMES = 60;
+    private static final int COOLDOWN_FRAMES = 30;
+
+    private final int capacity;
+    private final float[] x;
+    private final float[] y;
+    private final float[] vx;
+    private final float[] vy;
+    private final short[] life;
+    private final short[] maxLife;
+    private final byte[] kind;
+    private int count;
+    private int cap;
+
+    private final BufferedImage[][] sprites = new BufferedImage[KINDS][FADE_LEVELS];
+    private final int[] halfSize = new int[KINDS];
+    private long rngState = 0x2545F4914F6CDD1DL;
+    private long averageRenderNanos;
+    private int headroomFrames;
+    private int cooldownFrames;
+
+    public ParticleSystem(int capacity) {
+        this.capacity = capacity;
+        this.cap = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        life = new short[capacity];
+        maxLife = new short[capacity];
+        kind = new byte[capacity];
+    }
+
+    public static ParticleSystem fromSystemProperties() {
+        return new ParticleSystem(Math.max(0, Integer.getInteger("flappy.particles", 65536)));
+    }
+
+    /**
+     * Feathers shed behind the bird on a flap.
+     */
+    public void emitFlap(float px, float py) {
+        for (int i = 0; i < 12; i++) {
+            spawn(FEATHER, px, py, -1.5f - nextFloat() * 2f, nextFloat() * 3f - 1f, 30 + (int) (nextFloat() * 20));
+        }
+    }
+
+    /**
+     * A ring of sparkles when a pipe is passed.
+     */
+    public void emitScore(float px, float py) {
+        for (int i = 0; i < 40; i++) {
+            double angle = nextFloat() * Math.PI * 2;
+            float speed = 2f + nextFloat() * 4f;
+            spawn(SPARKLE, px, py, (float) Math.cos(angle) * speed, (float) Math.sin(angle) * speed,
+                    25 + (int) (nextFloat() * 25));
+        }
+    }
+
+    /**
+     * Debris thrown forward and up from the crash point.
+     */
+    public void emitCrash(float px, float py) {
+        for (int i = 0; i < 300; i++) {
+            spawn(DEBRIS, px, py, nextFloat() * 10f - 3f, -nextFloat() * 12f, 60 + (int) (nextFloat() * 60));
+        }
+    }
+
+    private void spawn(int particleKind, float px, float py, float pvx, float pvy, int ticks) {
+        if (count >= cap) {
+            return;
+        }
+        int i = count++;
+        x[i] = px;
+        y[i] = py;
+        vx[i] = pvx;
+        vy[i] = pvy;
+        life[i] = (short) ticks;
+        maxLife[i] = (short) ticks;
+        kind[i] = (byte) particleKind;
+    }
+
+    /**
+     * Advance all particles one tick and drop the expired ones.
+     */
+    public void update() {
+        int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+        int i = 0;
+        while (i < count) {
+            if (--life[i] <= 0 || y[i] > groundY) {
+                remove(i);
+                continue;
+            }
+            switch (kind[i]) {
+                case FEATHER: // drift down slowly
+                    vx[i] *= 0.96f;
+                    vy[i] = vy[i] * 0.9f + 0.08f;
+                    break;
+                case SPARKLE:
+                    vx[i] *= 0.92f;
+                    vy[i] *= 0.92f;
+                    break;
+                default: // debris falls with full gravity
+                    vy[i] += Constants.GRAVITY;
+                    break;
+            }
+            x[i] += vx[i];
+            y[i] += vy[i];
+            i++;
+        }
+    }
+
+    private void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        life[i] = life[last];
+        maxLife[i] = maxLife[last];
+        kind[i] = kind[last];
+    }
+
+    /**
+     * Draw every live particle, then adjust the cap from how long that took.
+     */
+    public void render(Graphics2D g) {
+        if (count == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        ensureSprites(g.getDeviceConfiguration());
+        for (int i = 0; i < count; i++) {
+            int k = kind[i];
+            int fade = FADE_LEVELS - 1 - life[i] * FADE_LEVELS / (maxLife[i] + 1);
+            int half = halfSize[k];
+            g.drawImage(sprites[k][fade], (int) x[i] - half, (int) y[i] - half, null);
+        }
+        adjustCap(System.nanoTime() - start);
+    }
+
+    /**
+     * Cut the cap by a quarter when over budget; creep back up after a run of cheap frames.
+     */
+    private void adjustCap(long renderNanos) {
+        averageRenderNanos = averageRenderNanos == 0 ? renderNanos : (averageRenderNanos * 7 + renderNanos) / 8;
+        if (cooldownFrames > 0) {
+            cooldownFrames--;
+            return;
+        }
+        if (averageRenderNanos > RENDER_BUDGET_NANOS && cap > MIN_CAP) {
+            cap = Math.max(MIN_CAP, Math.min(cap, count) * 3 / 4);
+            if (count > cap) {
+                count = cap; // drop the overflow outright
+            }
+            headroomFrames = 0;
+            cooldownFrames = COOLDOWN_FRAMES;
+        } else if (averageRenderNanos < RENDER_BUDGET_NANOS / 2 && cap < capacity) {
+            if (++headroomFrames >= GROW_FRAMES) {
+                cap = Math.min(capacity, cap + cap / 8);
+                headroomFrames = 0;
+            }
+        } else {
+            headroomFrames = 0;
+        }
+    }
+
+    private void ensureSprites(GraphicsConfiguration gc) {
+        if (sprites[0][0] != null) {
+            return;
+        }
+        buildSprites(gc, FEATHER, 6, new Color(255, 255, 255));
+        buildSprites(gc, SPARKLE, 6, new Color(255, 230, 90));
+        buildSprites(gc, DEBRIS, 5, new Color(120, 85, 50));
+    }
+
+    private void buildSprites(GraphicsConfiguration gc, int particleKind, int size, Color color) {
+        for (int level = 0; level < FADE_LEVELS; level++) {
+            BufferedImage image = gc != null
+                    ? gc.createCompatibleImage(size, size, Transparency.TRANSLUCENT)
+                    : new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            int alpha = 255 * (FADE_LEVELS - level) / FADE_LEVELS;
+            g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), alpha));
+            switch (particleKind) {
+                case FEATHER:
+                    g.fillOval(0, size / 4, size, size / 2);
+                    break;
+                case SPARKLE:
+                    g.fillRect(size / 2 - 1, 0, 2, size);
+                    g.fillRect(0, size / 2 - 1, size, 2);
+                    break;
+                default:
+                    g.fillRect(0, 0, size, size);
+                    break;
+            }
+            g.dispose();
+            sprites[particleKind][level] = image;
+        }
+        halfSize[particleKind] = size / 2;
+    }
+
+    /**
+     * Remove every particle (restart).
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    public int getActiveCount() {
+        return count;
+    }
+
+    public int getCap() {
+        return cap;
+    }
+
+    private float nextFloat() {
+        // xorshift64*, top 24 bits
+        rngState ^= rngState >>> 12;
+        rngState ^= rngState << 25;
+        rngState ^= rngState >>> 27;
+        return ((rngState * 0x2545F4914F6CDD1DL) >>> 40) / (float) (1 << 24);
+    }
+
+    /**
+     * Benchmark: keep the pool topped up and time update plus offscreen render.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.ParticleSystem [particles]
+     */
+    public static void main(String[] args) {
+        int target = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        ParticleSystem particles = new ParticleSystem(target);
+        BufferedImage frame = new BufferedImage(Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = frame.createGraphics();
+        long updateNanos = 0;
+        long renderNanos = 0;
+        int frames = 600;
+        for (int f = 0; f < frames; f++) {
+            while (particles.getActiveCount() + 300 <= particles.getCap()) {
+                particles.emitCrash(particles.nextFloat() * Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT / 2f);
+            }
+            long start = System.nanoTime();
+            particles.update();
+            long mid = System.nanoTime();
+            particles.render(g);
+            renderNanos += System.nanoTime() - mid;
+            updateNanos += mid - start;
+        }
+        g.dispose();
+        System.out.printf("update %.3f ms, render %.3f ms per frame; cap settled at %d of %d%n",
+                updateNanos / 1e6 / frames, renderNanos / 1e6 / frames, particles.getCap(), target);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.flappy;
+
+/**
+ * Party mode rules: up to eight local birds on one shared pipe course.
+ * Birds are addressed by index and tracked with bit masks (bit i = bird i),
+ * so one tick moves every live bird, then collides them all against the
+ * pipes in a single PipeManager pass.
+ */
+public class PartyWorld {
+    public static final int MAX_PLAYERS = 8;
+    public static final int POINT = 1 << MAX_PLAYERS; // step() flag above the death mask
+
+    private final Bird[] birds;
+    private final int players;
+    private final PipeManager pipeManager;
+    private final int[] scores;
+    private int aliveMask;
+    private long tick;
+
+    public PartyWorld(Bird[] birds, PipeManager pipeManager) {
+        if (birds.length < 1 || birds.length > MAX_PLAYERS) {
+            throw new IllegalArgumentException("Party needs 1.." + MAX_PLAYERS + " birds, got " + birds.length);
+        }
+        this.birds = birds;
+        this.players = birds.length;
+        this.pipeManager = pipeManager;
+        this.scores = new int[players];
+    }
+
+    /**
+     * Start a new round with every bird alive and all scores at zero.
+     */
+    public void reset() {
+        for (int i = 0; i < players; i++) {
+            birds[i].reset();
+            scores[i] = 0;
+        }
+        pipeManager.reset();
+        aliveMask = (1 << players) - 1;
+        tick = 0;
+    }
+
+    /**
+     * Advance one tick. Birds whose bit is set in flapMask flap first.
+     *
+     * @return mask of birds that died this tick, plus POINT if the live birds passed a pipe
+     */
+    public int step(int flapMask) {
+        if (aliveMask == 0) {
+            return 0;
+        }
+        tick++;
+        for (int remaining = aliveMask; remaining != 0; remaining &= remaining - 1) {
+            int i = Integer.numberOfTrailingZeros(remaining);
+            if ((flapMask & (1 << i)) != 0) {
+                birds[i].flap();
+            }
+            birds[i].update();
+        }
+        pipeManager.update();
+
+        // Every bird shares the same x, so one check scores the pipe for all live birds
+        int events = 0;
+        int points = pipeManager.checkScoring(birds[Integer.numberOfTrailingZeros(aliveMask)]);
+        if (points > 0) {
+            for (int remaining = aliveMask; remaining != 0; remaining &= remaining - 1) {
+                scores[Integer.numberOfTrailingZeros(remaining)] += points;
+            }
+            events |= POINT;
+        }
+
+        int died = pipeManager.checkCollisions(birds, aliveMask);
+        int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+        for (int remaining = aliveMask & ~died; remaining != 0; remaining &= remaining - 1) {
+            int i = Integer.numberOfTrailingZeros(remaining);
+            Bird bird = birds[i];
+            if (bird.getY() + bird.getHeight() >= groundY || bird.getY() < 0) {
+                died |= 1 << i;
+            }
+        }
+        aliveMask &= ~died;
+        return events | died;
+    }
+
+    public boolean isOver() {
+        return aliveMask == 0;
+    }
+
+    public boolean isAlive(int player) {
+        return (aliveMask & (1 << player)) != 0;
+    }
+
+    public int getAliveMask() {
+        return aliveMask;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public Bird getBird(int player) {
+        return birds[player];
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    /**
+     * Highest score in the round so far.
+     */
+    public int getBestScore() {
+        int best = 0;
+        for (int i = 0; i < players; i++) {
+            best = Math.max(best, scores[i]);
+        }
+        return best;
+    }
+
+    public PipeManager getPipeManager() {
+        return pipeManager;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+}
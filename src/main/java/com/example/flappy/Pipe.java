@@ -18,6 +18,18 @@ public class Pipe {
         this.scored = false;
     }
 
+    /**
+     * Reinitialize a recycled pipe as if newly constructed.
+     */
+    public Pipe reuse(int x, int gapY, int width, int gapHeight) {
+        this.x = x;
+        this.gapY = gapY;
+        this.width = width;
+        this.gapHeight = gapHeight;
+        this.scored = false;
+        return this;
+    }
+
     /**
      * Move pipe left by specified speed.
      */
@@ -58,6 +70,10 @@ public class Pipe {
         return gapY;
     }
 
+    public int getGapHeight() {
+        return gapHeight;
+    }
+
     public boolean isScored() {
         return scored;
     }
@@ -1,143 +1,345 @@
 package com.example.flappy;
 
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 
 /**
  * Manages pipe spawning, movement, and rendering.
+ *
+ * Pipes come from a seeded random generator, or from a Course when one is
+ * set. Random gaps the bird couldn't reach from the previous gap in time
+ * (see FlightEnvelope) are drawn again, which only happens once the speed,
+ * gap height or spawn interval is made harder than the defaults. On a
+ * course the spawn timer counts pixels scrolled since the last pipe and the
+ * random state holds the course position and the current speed, so
+ * snapshots (rewind, rollback, spectators) need only add the distance
+ * scrolled since the run started, which drives the ground and scenery at
+ * whatever speed the pipes move.
  */
 public class PipeManager {
+    private static final int COLLISION_PADDING = 20; // bird hit box is smaller than the sprite (more forgiving)
+    private static final int MAX_RESAMPLES = 16;
+
     private List<Pipe> pipes;
+    private final List<Pipe> sparePipes = new ArrayList<>(); // recycled off-screen pipes
     private BufferedImage pipeTop;
     private BufferedImage pipeBottom;
+    private BufferedImage topColumn;    // Full-height column, cap at the bottom
+    private BufferedImage bottomColumn; // Full-height column, cap at the top
+    private int columnHeight = -1;
     private int spawnTimer;
-    private Random random;
+    private long rngState; // SplitMix64 state (the SplittableRandom generator), so runs can be seeded
+    private Course course;   // null for random pipes
+    private int coursePosition; // next pipe of the course to spawn
+    private int speed = Constants.PIPE_SPEED;
+    private int baseSpeed = Constants.PIPE_SPEED;
+    private int gapHeight = Constants.PIPE_GAP_HEIGHT;
+    private int spawnInterval = Constants.PIPE_SPAWN_INTERVAL;
+    private long distance; // pixels scrolled since reset
+    private long resamples;
 
     public PipeManager(BufferedImage pipeTop, BufferedImage pipeBottom) {
         this.pipes = new ArrayList<>();
         this.pipeTop = pipeTop;
         this.pipeBottom = pipeBottom;
         this.spawnTimer = 0;
-        this.random = new Random();
+        this.rngState = System.nanoTime();
     }
 
     /**
-     * Update all pipes: move them left, remove off-screen ones, spawn new ones.
+     * Update all pipes: move them left, recycle off-screen ones, spawn new ones.
+     * Indexed loops and the spare pool keep this allocation-free.
      */
     public void update() {
-        // Move all pipes
-        for (Pipe pipe : pipes) {
-            pipe.update(Constants.PIPE_SPEED);
+        // Move all pipes, compacting the list in place as off-screen ones are recycled
+        int kept = 0;
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
+            pipe.update(speed);
+            if (pipe.isOffScreen()) {
+                sparePipes.add(pipe);
+            } else {
+                pipes.set(kept++, pipe);
+            }
+        }
+        for (int i = pipes.size() - 1; i >= kept; i--) {
+            pipes.remove(i);
         }
+        distance += speed;
 
-        // Remove off-screen pipes
-        pipes.removeIf(Pipe::isOffScreen);
+        if (course != null) {
+            spawnFromCourse();
+            return;
+        }
 
         // Spawn new pipe
         spawnTimer++;
-        if (spawnTimer >= Constants.PIPE_SPAWN_INTERVAL) {
+        if (spawnTimer >= spawnInterval) {
             spawnPipe();
             spawnTimer = 0;
         }
     }
 
     /**
-     * Spawn a new pipe at the right edge with random gap position.
-     * Creates varied vertical positions for more interesting gameplay.
+     * Spawn a new pipe at the right edge with random gap position, drawn again
+     * (up to MAX_RESAMPLES times, then moved to the nearest reachable height)
+     * while the bird couldn't get there from the previous gap.
      */
     private void spawnPipe() {
+        int gapY = randomGapY();
+        if (!pipes.isEmpty()) {
+            Pipe previous = pipes.get(pipes.size() - 1); // the last one spawned
+            int ticks = FlightEnvelope.freeTicks(spawnInterval * speed, speed);
+            int highest = FlightEnvelope.highestGapY(previous.getGapY(), previous.getGapHeight(), gapHeight,
+                    ticks, FlightEnvelope.BIRD_HEIGHT);
+            int lowest = FlightEnvelope.lowestGapY(previous.getGapY(), previous.getGapHeight(), gapHeight,
+                    ticks, FlightEnvelope.BIRD_HEIGHT);
+            for (int i = 0; i < MAX_RESAMPLES && (gapY < highest || gapY > lowest); i++) {
+                gapY = randomGapY();
+                resamples++;
+            }
+            gapY = Math.max(highest, Math.min(lowest, gapY));
+        }
+
+        Pipe pipe = sparePipes.isEmpty()
+                ? new Pipe(Constants.WINDOW_WIDTH, gapY, Constants.PIPE_WIDTH, gapHeight)
+                : sparePipes.remove(sparePipes.size() - 1)
+                        .reuse(Constants.WINDOW_WIDTH, gapY, Constants.PIPE_WIDTH, gapHeight);
+        pipes.add(pipe);
+    }
+
+    /**
+     * Random gap position.
+     * Creates varied vertical positions for more interesting gameplay.
+     */
+    private int randomGapY() {
         // Create more varied gap positions - divide screen into zones for better distribution
         int range = Constants.PIPE_MAX_GAP_Y - Constants.PIPE_MIN_GAP_Y;
-        int zone = random.nextInt(5); // 5 different zones (high, mid-high, middle, mid-low, low)
-        int gapY;
-        
+        int zone = nextInt(5); // 5 different zones (high, mid-high, middle, mid-low, low)
+
         switch (zone) {
             case 0: // High position
-                gapY = Constants.PIPE_MIN_GAP_Y + random.nextInt(range / 5);
-                break;
+                return Constants.PIPE_MIN_GAP_Y + nextInt(range / 5);
             case 1: // Mid-high position
-                gapY = Constants.PIPE_MIN_GAP_Y + (range / 5) + random.nextInt(range / 5);
-                break;
+                return Constants.PIPE_MIN_GAP_Y + (range / 5) + nextInt(range / 5);
             case 2: // Middle position
-                gapY = Constants.PIPE_MIN_GAP_Y + (range * 2 / 5) + random.nextInt(range / 5);
-                break;
+                return Constants.PIPE_MIN_GAP_Y + (range * 2 / 5) + nextInt(range / 5);
             case 3: // Mid-low position
-                gapY = Constants.PIPE_MIN_GAP_Y + (range * 3 / 5) + random.nextInt(range / 5);
-                break;
+                return Constants.PIPE_MIN_GAP_Y + (range * 3 / 5) + nextInt(range / 5);
             default: // Low position
-                gapY = Constants.PIPE_MIN_GAP_Y + (range * 4 / 5) + random.nextInt(range / 5);
-                break;
+                return Constants.PIPE_MIN_GAP_Y + (range * 4 / 5) + nextInt(range / 5);
         }
-        
-        pipes.add(new Pipe(Constants.WINDOW_WIDTH, gapY, Constants.PIPE_WIDTH, Constants.PIPE_GAP_HEIGHT));
     }
 
     /**
-     * Render all pipes.
+     * Spawn every course pipe whose spacing has scrolled by, each at the exact
+     * distance from the previous one, applying its speed change.
+     */
+    private void spawnFromCourse() {
+        spawnTimer += speed;
+        int spacing;
+        while (spawnTimer >= (spacing = course.spacing(coursePosition))) {
+            spawnTimer -= spacing;
+            int x = Constants.WINDOW_WIDTH - spawnTimer;
+            int gapY = course.gapY(coursePosition);
+            int gapHeight = course.gapHeight(coursePosition);
+            Pipe pipe = sparePipes.isEmpty()
+                    ? new Pipe(x, gapY, Constants.PIPE_WIDTH, gapHeight)
+                    : sparePipes.remove(sparePipes.size() - 1).reuse(x, gapY, Constants.PIPE_WIDTH, gapHeight);
+            pipes.add(pipe);
+            int newSpeed = course.speed(coursePosition);
+            if (newSpeed != 0) {
+                speed = newSpeed;
+            }
+            // The course repeats once its last pipe is out
+            coursePosition = coursePosition + 1 == course.size() ? 0 : coursePosition + 1;
+        }
+    }
+
+    /**
+     * Render all pipes as cropped blits from the cached columns (no scaling).
      */
     public void render(Graphics2D g) {
-        for (Pipe pipe : pipes) {
+        int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+        ensureColumns(g.getDeviceConfiguration(), groundY);
+        int width = Constants.PIPE_WIDTH;
+
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
             int x = pipe.getX();
-            int gapY = pipe.getGapY();
-            int gapHeight = Constants.PIPE_GAP_HEIGHT;
 
-            // Top pipe (flipped)
-            int topPipeHeight = gapY - gapHeight / 2;
-            if (topPipeHeight > 0 && pipeTop != null) {
-                g.drawImage(pipeTop, x, 0, Constants.PIPE_WIDTH, topPipeHeight, null);
+            // Top pipe: the lowest topPipeHeight rows of the column, so the cap meets the gap
+            int topPipeHeight = pipe.getTopPipeBottom();
+            if (topPipeHeight > 0 && topColumn != null) {
+                g.drawImage(topColumn, x, 0, x + width, topPipeHeight,
+                        0, columnHeight - topPipeHeight, width, columnHeight, null);
             }
 
-            // Bottom pipe
-            int bottomPipeTop = gapY + gapHeight / 2;
-            int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+            // Bottom pipe: the highest bottomPipeHeight rows of the column
+            int bottomPipeTop = pipe.getBottomPipeTop();
             int bottomPipeHeight = groundY - bottomPipeTop;
-            if (bottomPipeHeight > 0 && pipeBottom != null) {
-                g.drawImage(pipeBottom, x, bottomPipeTop, Constants.PIPE_WIDTH, bottomPipeHeight, null);
+            if (bottomPipeHeight > 0 && bottomColumn != null) {
+                g.drawImage(bottomColumn, x, bottomPipeTop, x + width, groundY,
+                        0, 0, width, bottomPipeHeight, null);
+            }
+        }
+    }
+
+    /**
+     * Pre-render both pipe columns at PIPE_WIDTH, tall enough for any gap position.
+     * Rebuilt only when the playfield height changes.
+     */
+    private void ensureColumns(GraphicsConfiguration gc, int height) {
+        if (height == columnHeight || height <= 0) {
+            return;
+        }
+        topColumn = buildColumn(gc, pipeTop, height, true);
+        bottomColumn = buildColumn(gc, pipeBottom, height, false);
+        columnHeight = height;
+    }
+
+    /**
+     * Build a column from the sprite scaled uniformly to PIPE_WIDTH (the cap) and a
+     * band from the middle of the sprite tiled out to the far end (the body).
+     */
+    private static BufferedImage buildColumn(GraphicsConfiguration gc, BufferedImage sprite, int height, boolean capAtBottom) {
+        if (sprite == null) {
+            return null;
+        }
+        int width = Constants.PIPE_WIDTH;
+        int capHeight = Math.max(1, sprite.getHeight() * width / sprite.getWidth());
+        BufferedImage column = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = column.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+        // Body band: rows 40%-50% of the source, repeated away from the cap
+        int bandSrcTop = sprite.getHeight() * 2 / 5;
+        int bandSrcBottom = Math.max(bandSrcTop + 1, sprite.getHeight() / 2);
+        int bandHeight = Math.max(1, (bandSrcBottom - bandSrcTop) * width / sprite.getWidth());
+
+        int capY = capAtBottom ? height - capHeight : 0;
+        if (capAtBottom) {
+            for (int y = capY - bandHeight; y > -bandHeight; y -= bandHeight) {
+                g.drawImage(sprite, 0, y, width, y + bandHeight,
+                        0, bandSrcTop, sprite.getWidth(), bandSrcBottom, null);
+            }
+        } else {
+            for (int y = capHeight; y < height; y += bandHeight) {
+                g.drawImage(sprite, 0, y, width, y + bandHeight,
+                        0, bandSrcTop, sprite.getWidth(), bandSrcBottom, null);
             }
         }
+        g.drawImage(sprite, 0, capY, width, capHeight, null);
+        g.dispose();
+        return column;
     }
 
     /**
      * Check collision between bird and any pipe.
-     * More lenient collision - uses smaller collision box with padding.
+     * Birds with a sprite use their pixel mask; sprite-less birds fall back to
+     * a padded box that is smaller than the visual (more forgiving). Pipes are
+     * kept in x order, so the scan stops at the first pipe right of the bird.
      */
     public boolean checkCollision(Bird bird) {
-        int birdX = bird.getX();
-        int birdY = bird.getY();
-        int birdWidth = bird.getWidth();
-        int birdHeight = bird.getHeight();
-        
-        // More lenient padding - bird collision box is smaller than visual (more forgiving)
-        int padding = 20; // Large padding for more forgiving collisions
-        int birdLeft = birdX + padding;
-        int birdRight = birdX + birdWidth - padding;
-        int birdTop = birdY + padding;
-        int birdBottom = birdY + birdHeight - padding;
-
-        for (Pipe pipe : pipes) {
+        int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+        int birdRight = rightEdge(bird);
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
             int pipeX = pipe.getX();
-            int pipeWidth = pipe.getWidth();
+            if (pipeX >= birdRight) {
+                break;
+            }
+            if (collides(bird, pipeX, pipeX + pipe.getWidth(), pipe.getTopPipeBottom(), pipe.getBottomPipeTop(), groundY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check every bird in aliveMask against the pipes in a single pass: each
+     * pipe's bounds are computed once and tested against all remaining birds.
+     *
+     * @return mask of the birds (bit i = birds[i]) that hit a pipe
+     */
+    public int checkCollisions(Bird[] birds, int aliveMask) {
+        int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
+        int birdsRight = Integer.MIN_VALUE;
+        for (int remaining = aliveMask; remaining != 0; remaining &= remaining - 1) {
+            birdsRight = Math.max(birdsRight, rightEdge(birds[Integer.numberOfTrailingZeros(remaining)]));
+        }
+        int hits = 0;
+        for (int p = 0; p < pipes.size(); p++) {
+            Pipe pipe = pipes.get(p);
+            int pipeLeft = pipe.getX();
+            if (pipeLeft >= birdsRight) {
+                break;
+            }
+            int pipeRight = pipeLeft + pipe.getWidth();
             int topPipeBottom = pipe.getTopPipeBottom();
             int bottomPipeTop = pipe.getBottomPipeTop();
-            int groundY = Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT;
 
-            // Check if bird is horizontally overlapping with pipe
-            if (birdRight > pipeX && birdLeft < pipeX + pipeWidth) {
-                // Check collision with top pipe - bird must be inside the top pipe solid area
-                if (birdTop < topPipeBottom && birdBottom > 0) {
-                    return true;
-                }
-                
-                // Check collision with bottom pipe - bird must be inside the bottom pipe solid area
-                if (birdBottom > bottomPipeTop && birdTop < groundY) {
-                    return true;
+            for (int remaining = aliveMask & ~hits; remaining != 0; remaining &= remaining - 1) {
+                int i = Integer.numberOfTrailingZeros(remaining);
+                if (collides(birds[i], pipeLeft, pipeRight, topPipeBottom, bottomPipeTop, groundY)) {
+                    hits |= 1 << i;
                 }
             }
         }
-        return false;
+        return hits;
+    }
+
+    /**
+     * Right edge of the bird's collision shape: its mask or its padded box.
+     */
+    private static int rightEdge(Bird bird) {
+        CollisionMask mask = bird.getCollisionMask();
+        return mask != null
+                ? bird.getX() + mask.getOffsetX() + mask.getWidth()
+                : bird.getX() + bird.getWidth() - COLLISION_PADDING;
+    }
+
+    /**
+     * Test one bird against one pipe's solid areas: the top pipe [0, topPipeBottom)
+     * and the bottom pipe [bottomPipeTop, groundY), both [pipeLeft, pipeRight) wide.
+     * A cheap box test runs first; only overlapping boxes reach the mask rows.
+     */
+    private static boolean collides(Bird bird, int pipeLeft, int pipeRight, int topPipeBottom, int bottomPipeTop, int groundY) {
+        CollisionMask mask = bird.getCollisionMask();
+        if (mask == null) {
+            int birdLeft = bird.getX() + COLLISION_PADDING;
+            int birdRight = bird.getX() + bird.getWidth() - COLLISION_PADDING;
+            if (birdRight <= pipeLeft || birdLeft >= pipeRight) {
+                return false;
+            }
+            int birdTop = bird.getY() + COLLISION_PADDING;
+            int birdBottom = bird.getY() + bird.getHeight() - COLLISION_PADDING;
+            return (birdTop < topPipeBottom && birdBottom > 0)
+                    || (birdBottom > bottomPipeTop && birdTop < groundY);
+        }
+
+        int maskLeft = bird.getX() + mask.getOffsetX();
+        int maskTop = bird.getY() + mask.getOffsetY();
+        if (maskLeft + mask.getWidth() <= pipeLeft || maskLeft >= pipeRight) {
+            return false;
+        }
+        int maskBottom = maskTop + mask.getHeight();
+        int colFrom = pipeLeft - maskLeft;
+        int colTo = pipeRight - maskLeft;
+        if (maskTop < topPipeBottom && maskBottom > 0
+                && mask.intersects(colFrom, colTo, -maskTop, topPipeBottom - maskTop)) {
+            return true;
+        }
+        return maskBottom > bottomPipeTop && maskTop < groundY
+                && mask.intersects(colFrom, colTo, bottomPipeTop - maskTop, groundY - maskTop);
     }
 
     /**
@@ -145,7 +347,8 @@ public class PipeManager {
      */
     public int checkScoring(Bird bird) {
         int score = 0;
-        for (Pipe pipe : pipes) {
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
             if (pipe.hasPassed(bird.getX())) {
                 pipe.setScored(true);
                 score++;
@@ -158,12 +361,162 @@ public class PipeManager {
      * Reset all pipes and spawn timer.
      */
     public void reset() {
+        sparePipes.addAll(pipes);
         pipes.clear();
         spawnTimer = 0;
+        coursePosition = 0;
+        speed = baseSpeed;
+        distance = 0;
+    }
+
+    /**
+     * Reset and seed pipe generation, so the same seed always yields the same course.
+     * On a Course the seed is ignored: every run starts from its first pipe.
+     */
+    public void reset(long seed) {
+        reset();
+        rngState = seed;
+    }
+
+    /**
+     * Take pipes from a course instead of the random generator (null to go back);
+     * applies from the next reset.
+     */
+    public void setCourse(Course course) {
+        this.course = course;
+    }
+
+    /**
+     * Pipe speed, gap height and ticks between random pipes (harder than the
+     * Constants defaults for hard modes); applies from the next reset. A gap
+     * no taller than FlightEnvelope.BIRD_HEIGHT could never be flown through,
+     * so it is raised to one pixel more.
+     */
+    public void setDifficulty(int speed, int gapHeight, int spawnInterval) {
+        if (gapHeight <= FlightEnvelope.BIRD_HEIGHT) {
+            System.err.println("Pipe gap " + gapHeight + " is too small for a " + FlightEnvelope.BIRD_HEIGHT
+                    + " px bird, using " + (FlightEnvelope.BIRD_HEIGHT + 1));
+            gapHeight = FlightEnvelope.BIRD_HEIGHT + 1;
+        }
+        this.baseSpeed = speed;
+        this.gapHeight = gapHeight;
+        this.spawnInterval = spawnInterval;
+    }
+
+    /**
+     * Random gaps drawn again because the bird couldn't have reached them.
+     */
+    public long getResamples() {
+        return resamples;
+    }
+
+    public Course getCourse() {
+        return course;
+    }
+
+    /**
+     * Course.hash of the course in use, or 0 for random pipes.
+     */
+    public long getCourseHash() {
+        return course != null ? course.hash() : 0;
+    }
+
+    /**
+     * Pipe speed each run starts at (see setDifficulty).
+     */
+    public int getBaseSpeed() {
+        return baseSpeed;
+    }
+
+    public int getGapHeight() {
+        return gapHeight;
+    }
+
+    public int getSpawnInterval() {
+        return spawnInterval;
+    }
+
+    /**
+     * Most random pipes alive at once: one per spawn spacing across the window
+     * and the pipe width, plus the one entering. A course sets its own spacing.
+     */
+    public int getLivePipeBound() {
+        return (Constants.WINDOW_WIDTH + Constants.PIPE_WIDTH) / Math.max(1, baseSpeed * spawnInterval) + 2;
+    }
+
+    public int getCoursePosition() {
+        return coursePosition;
+    }
+
+    /**
+     * Pixels the pipes move per tick.
+     */
+    public int getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Pixels the pipes have scrolled since the run started.
+     */
+    public long getDistance() {
+        return distance;
+    }
+
+    /**
+     * Uniform int in [0, bound) from the SplitMix64 sequence.
+     */
+    private int nextInt(int bound) {
+        rngState += 0x9E3779B97F4A7C15L;
+        long z = rngState;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) (((z >>> 33) * bound) >>> 31);
     }
 
     public List<Pipe> getPipes() {
         return pipes;
     }
+
+    public int getSpawnTimer() {
+        return spawnTimer;
+    }
+
+    /**
+     * The generator state, or on a course its position and the speed packed together.
+     */
+    public long getRngState() {
+        return course != null ? (long) speed << 32 | coursePosition : rngState;
+    }
+
+    /**
+     * Drop every pipe and set the spawn timer, random state and distance, ready
+     * for restorePipe calls that rebuild a captured course (rewind, rollback).
+     */
+    public void restoreState(int spawnTimer, long rngState, long distance) {
+        for (int i = 0; i < pipes.size(); i++) {
+            sparePipes.add(pipes.get(i));
+        }
+        pipes.clear();
+        this.spawnTimer = spawnTimer;
+        this.distance = distance;
+        if (course != null) {
+            coursePosition = (int) rngState;
+            speed = (int) (rngState >>> 32);
+        } else {
+            this.rngState = rngState;
+        }
+    }
+
+    /**
+     * Append a pipe to a course being restored, recycling a spare when possible.
+     */
+    public void restorePipe(int x, int gapY, int width, int gapHeight, boolean scored) {
+        Pipe pipe = sparePipes.isEmpty()
+                ? new Pipe(x, gapY, width, gapHeight)
+                : sparePipes.remove(sparePipes.size() - 1).reuse(x, gapY, width, gapHeight);
+        pipe.setScored(scored);
+        pipes.add(pipe);
+    }
 }
 
@@ -0,0 +1,384 @@
+package com.example.flappy;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Software rasterizer that draws a GameWorld straight into an int[] ARGB frame at
+ * a small resolution (e.g. 84x84), for pixel-based agents and screenshot tests.
+ *
+ * Sprites are downsampled once at construction into packed int arrays; rendering
+ * uses no Graphics2D and never touches the AWT toolkit, so it runs headless and
+ * allocates nothing per frame. Grayscale output and a k-frame grayscale stack
+ * are available for agents that want them.
+ *
+ * Usage (benchmark / screenshot):
+ *   java -cp flappy.jar com.example.flappy.PixelRenderer [--size 84] [--frames 100000] [--ppm out.ppm]
+ */
+public class PixelRenderer {
+    private static final int SKY = 0xff87ceeb;
+    private static final int GROUND_FALLBACK = 0xff8b5a2b;
+
+    private final int width;
+    private final int height;
+    private final float scaleX;
+    private final float scaleY;
+    private final int[] frame;
+
+    // Pre-downsampled sprites
+    private final int[] background;
+    private final Sprite groundTile;
+    private final Sprite topColumn;
+    private final Sprite bottomColumn;
+    private final int[] birdSource;
+    private final int birdSourceWidth;
+    private final int birdSourceHeight;
+    private Sprite bird;
+
+    // Grayscale frame stack (ring of stackDepth frames)
+    private final int stackDepth;
+    private final byte[] stack;
+    private int stackHead;
+    private int stackFilled;
+
+    /**
+     * Packed ARGB sprite.
+     */
+    static final class Sprite {
+        final int width;
+        final int height;
+        final int[] pixels;
+
+        Sprite(int width, int height, int[] pixels) {
+            this.width = width;
+            this.height = height;
+            this.pixels = pixels;
+        }
+    }
+
+    /**
+     * Renderer using the game's own images and the given bird skin (1-3).
+     */
+    public PixelRenderer(int width, int height, int stackDepth, int skin) {
+        this(width, height, stackDepth,
+                AssetLoader.loadImage("/images/background.png"),
+                AssetLoader.loadImage("/images/ground.png"),
+                AssetLoader.loadImage("/images/pipe_top.png"),
+                AssetLoader.loadImage("/images/pipe_bottom.png"),
+                AssetLoader.loadImage("/images/bird" + skin + ".png"));
+    }
+
+    public PixelRenderer(int width, int height, int stackDepth, BufferedImage backgroundImage,
+                         BufferedImage groundImage, BufferedImage pipeTopImage,
+                         BufferedImage pipeBottomImage, BufferedImage birdImage) {
+        this.width = width;
+        this.height = height;
+        this.scaleX = (float) width / Constants.WINDOW_WIDTH;
+        this.scaleY = (float) height / Constants.WINDOW_HEIGHT;
+        this.frame = new int[width * height];
+
+        // Background: the whole window downsampled once, with the ground fallback below it
+        if (backgroundImage != null) {
+            background = downsample(pixelsOf(backgroundImage), backgroundImage.getWidth(), backgroundImage.getHeight(),
+                    width, height);
+        } else {
+            background = new int[width * height];
+            Arrays.fill(background, SKY);
+        }
+
+        int groundHeight = Math.max(1, Math.round(Constants.GROUND_HEIGHT * scaleY));
+        if (groundImage != null) {
+            int tileWidth = Math.max(1, Math.round(groundImage.getWidth() * scaleX));
+            int tileHeight = Math.max(1, Math.round(groundImage.getHeight() * scaleY));
+            groundTile = new Sprite(tileWidth, tileHeight, downsample(pixelsOf(groundImage),
+                    groundImage.getWidth(), groundImage.getHeight(), tileWidth, tileHeight));
+        } else {
+            int[] fill = new int[width * groundHeight];
+            Arrays.fill(fill, GROUND_FALLBACK);
+            groundTile = new Sprite(width, groundHeight, fill);
+        }
+
+        int columnHeight = Math.max(1, Math.round((Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT) * scaleY));
+        topColumn = buildColumn(pipeTopImage, columnHeight, true);
+        bottomColumn = buildColumn(pipeBottomImage, columnHeight, false);
+
+        if (birdImage != null) {
+            birdSource = pixelsOf(birdImage);
+            birdSourceWidth = birdImage.getWidth();
+            birdSourceHeight = birdImage.getHeight();
+        } else {
+            birdSource = null;
+            birdSourceWidth = 0;
+            birdSourceHeight = 0;
+        }
+
+        this.stackDepth = Math.max(1, stackDepth);
+        this.stack = new byte[this.stackDepth * width * height];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * The ARGB frame last rendered (row-major, width x height). Reused every frame.
+     */
+    public int[] getFrame() {
+        return frame;
+    }
+
+    /**
+     * Rasterize the world: background, pipes, ground, bird.
+     */
+    public int[] render(GameWorld world) {
+        System.arraycopy(background, 0, frame, 0, frame.length);
+
+        int groundY = Math.round((Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT) * scaleY);
+        List<Pipe> pipes = world.getPipeManager().getPipes();
+        for (int i = 0; i < pipes.size(); i++) {
+            Pipe pipe = pipes.get(i);
+            int x = Math.round(pipe.getX() * scaleX);
+            int topHeight = Math.round(pipe.getTopPipeBottom() * scaleY);
+            int bottomTop = Math.round(pipe.getBottomPipeTop() * scaleY);
+            // A pipe taller than the column (a gap off the playfield) shows the column's full height
+            if (topColumn != null && topHeight > 0) {
+                int height = Math.min(topHeight, topColumn.height);
+                blit(topColumn, 0, topColumn.height - height, x, topHeight - height, topColumn.width, height);
+            }
+            if (bottomColumn != null && bottomTop < groundY) {
+                int height = Math.min(groundY - bottomTop, bottomColumn.height);
+                blit(bottomColumn, 0, 0, x, groundY - height, bottomColumn.width, height);
+            }
+        }
+
+        // Ground tiles scrolled with the pipes
+        int offset = Math.round(world.getPipeManager().getDistance() * scaleX) % groundTile.width;
+        for (int x = -offset; x < width; x += groundTile.width) {
+            blit(groundTile, 0, 0, x, groundY, groundTile.width, groundTile.height);
+        }
+
+        Bird b = world.getBird();
+        Sprite birdSprite = birdSprite(b.getWidth(), b.getHeight());
+        if (birdSprite != null) {
+            blit(birdSprite, 0, 0, Math.round(b.getX() * scaleX), Math.round(b.getExactY() * scaleY),
+                    birdSprite.width, birdSprite.height);
+        }
+        return frame;
+    }
+
+    /**
+     * Convert the current frame to 8-bit luma (BT.601 weights) into dst at offset.
+     */
+    public void toGrayscale(byte[] dst, int offset) {
+        for (int i = 0; i < frame.length; i++) {
+            int p = frame[i];
+            int luma = (((p >> 16) & 0xff) * 77 + ((p >> 8) & 0xff) * 150 + (p & 0xff) * 29) >> 8;
+            dst[offset + i] = (byte) luma;
+        }
+    }
+
+    /**
+     * Render the world and push its grayscale frame onto the stack.
+     */
+    public void renderAndPush(GameWorld world) {
+        render(world);
+        toGrayscale(stack, stackHead * frame.length);
+        stackHead = (stackHead + 1) % stackDepth;
+        stackFilled = Math.min(stackFilled + 1, stackDepth);
+    }
+
+    /**
+     * Copy the stacked grayscale frames, oldest first, into dst (stackDepth * width * height
+     * bytes). Until the stack is full the oldest available frame is repeated.
+     */
+    public void copyStack(byte[] dst) {
+        int size = frame.length;
+        for (int i = 0; i < stackDepth; i++) {
+            int age = stackDepth - 1 - i;  // frames back from the newest
+            int back = Math.min(age, stackFilled - 1);
+            int slot = Math.floorMod(stackHead - 1 - Math.max(0, back), stackDepth);
+            System.arraycopy(stack, slot * size, dst, i * size, size);
+        }
+    }
+
+    /**
+     * Drop stacked history (new episode).
+     */
+    public void clearStack() {
+        stackHead = 0;
+        stackFilled = 0;
+    }
+
+    /**
+     * Write the current frame as a binary PPM, for screenshot tests.
+     */
+    public void writePpm(Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            out.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+            for (int p : frame) {
+                out.write((p >> 16) & 0xff);
+                out.write((p >> 8) & 0xff);
+                out.write(p & 0xff);
+            }
+        }
+    }
+
+    /**
+     * Bird sprite downsampled for the given display size, rebuilt only if it changes.
+     */
+    private Sprite birdSprite(int displayWidth, int displayHeight) {
+        if (birdSource == null) {
+            return null;
+        }
+        int w = Math.max(1, Math.round(displayWidth * scaleX));
+        int h = Math.max(1, Math.round(displayHeight * scaleY));
+        if (bird == null || bird.width != w || bird.height != h) {
+            bird = new Sprite(w, h, downsample(birdSource, birdSourceWidth, birdSourceHeight, w, h));
+        }
+        return bird;
+    }
+
+    /**
+     * Same layout as PipeManager's cached columns: the sprite scaled uniformly as
+     * the cap at the gap end, with a band from its middle repeated to the far end.
+     */
+    private Sprite buildColumn(BufferedImage image, int columnHeight, boolean capAtBottom) {
+        if (image == null) {
+            return null;
+        }
+        int columnWidth = Math.max(1, Math.round(Constants.PIPE_WIDTH * scaleX));
+        int capHeight = Math.max(1, Math.round(image.getHeight() * Constants.PIPE_WIDTH / (float) image.getWidth() * scaleY));
+        int[] cap = downsample(pixelsOf(image), image.getWidth(), image.getHeight(), columnWidth, capHeight);
+        int bandTop = capHeight * 2 / 5;
+        int bandHeight = Math.max(1, capHeight / 2 - bandTop);
+
+        int[] pixels = new int[columnWidth * columnHeight];
+        for (int y = 0; y < columnHeight; y++) {
+            // Distance from the gap end decides whether this row is cap or body
+            int fromCap = capAtBottom ? columnHeight - 1 - y : y;
+            int capRow;
+            if (fromCap < capHeight) {
+                capRow = capAtBottom ? capHeight - 1 - fromCap : fromCap;
+            } else {
+                capRow = bandTop + (fromCap - capHeight) % bandHeight;
+            }
+            System.arraycopy(cap, capRow * columnWidth, pixels, y * columnWidth, columnWidth);
+        }
+        return new Sprite(columnWidth, columnHeight, pixels);
+    }
+
+    /**
+     * Alpha-blend a w x h region of the sprite starting at (sx, sy) onto the frame at (dx, dy), clipped.
+     */
+    private void blit(Sprite sprite, int sx, int sy, int dx, int dy, int w, int h) {
+        int x0 = Math.max(0, dx);
+        int y0 = Math.max(0, dy);
+        int x1 = Math.min(width, dx + w);
+        int y1 = Math.min(height, dy + h);
+        for (int y = y0; y < y1; y++) {
+            int src = (sy + y - dy) * sprite.width + sx + x0 - dx;
+            int dst = y * width + x0;
+            for (int x = x0; x < x1; x++, src++, dst++) {
+                int p = sprite.pixels[src];
+                int a = p >>> 24;
+                if (a == 255) {
+                    frame[dst] = p;
+                } else if (a != 0) {
+                    frame[dst] = blend(frame[dst], p, a);
+                }
+            }
+        }
+    }
+
+    private static int blend(int dst, int src, int a) {
+        int ia = 255 - a;
+        int rb = (((src & 0xff00ff) * a + (dst & 0xff00ff) * ia) >>> 8) & 0xff00ff;
+        int g = (((src & 0x00ff00) * a + (dst & 0x00ff00) * ia) >>> 8) & 0x00ff00;
+        return 0xff000000 | rb | g;
+    }
+
+    private static int[] pixelsOf(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    /**
+     * Area-average (box filter) resample of ARGB pixels, averaging in premultiplied alpha.
+     */
+    static int[] downsample(int[] src, int srcWidth, int srcHeight, int dstWidth, int dstHeight) {
+        int[] dst = new int[dstWidth * dstHeight];
+        for (int dy = 0; dy < dstHeight; dy++) {
+            int y0 = dy * srcHeight / dstHeight;
+            int y1 = Math.max(y0 + 1, (dy + 1) * srcHeight / dstHeight);
+            for (int dx = 0; dx < dstWidth; dx++) {
+                int x0 = dx * srcWidth / dstWidth;
+                int x1 = Math.max(x0 + 1, (dx + 1) * srcWidth / dstWidth);
+                long a = 0, r = 0, g = 0, b = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        int p = src[y * srcWidth + x];
+                        int pa = p >>> 24;
+                        a += pa;
+                        r += ((p >> 16) & 0xff) * pa;
+                        g += ((p >> 8) & 0xff) * pa;
+                        b += (p & 0xff) * pa;
+                    }
+                }
+                int n = (x1 - x0) * (y1 - y0);
+                int outA = (int) (a / n);
+                if (a > 0) {
+                    dst[dy * dstWidth + dx] = (outA << 24) | (int) (r / a) << 16 | (int) (g / a) << 8 | (int) (b / a);
+                }
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Benchmark: render frames of a scripted run and report frames/second.
+     */
+    public static void main(String[] args) throws IOException {
+        int size = 84;
+        int frames = 100_000;
+        Path ppm = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size": size = Integer.parseInt(args[++i]); break;
+                case "--frames": frames = Integer.parseInt(args[++i]); break;
+                case "--ppm": ppm = Paths.get(args[++i]); break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        PixelRenderer renderer = new PixelRenderer(size, size, 4, 1);
+        GameWorld world = GameWorld.forSkin(0);
+        world.reset(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < frames; i++) {
+            if (world.isDead()) {
+                world.reset(i);
+            }
+            world.step(i % 24 == 0);
+            renderer.render(world);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%dx%d: %.0f frames/s%n", size, size, frames / seconds);
+        if (ppm != null) {
+            renderer.writePpm(ppm);
+            System.out.println("Wrote " + ppm);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.flappy;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.image.VolatileImage;
+import java.util.function.Consumer;
+
+/**
+ * Render quality presets controlling the Java2D hints used for the game scene.
+ * All panels apply the current preset through {@link #apply(Graphics2D)} so the
+ * hints are set in one place and can be switched at runtime.
+ *
+ * Selected with -Dflappy.renderQuality=fast|balanced|quality|auto (default auto).
+ */
+public enum RenderQuality {
+    // Nearest-neighbour blits, no antialiasing of shapes or text
+    FAST(RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR,
+         RenderingHints.VALUE_ANTIALIAS_OFF,
+         RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED,
+         RenderingHints.VALUE_TEXT_ANTIALIAS_OFF,
+         RenderingHints.VALUE_RENDER_SPEED),
+    // Bilinear blits and smooth text, shapes left aliased
+    BALANCED(RenderingHints.VALUE_INTERPOLATION_BILINEAR,
+         RenderingHints.VALUE_ANTIALIAS_OFF,
+         RenderingHints.VALUE_ALPHA_INTERPOLATION_DEFAULT,
+         RenderingHints.VALUE_TEXT_ANTIALIAS_ON,
+         RenderingHints.VALUE_RENDER_DEFAULT),
+    // Everything smooth (the original look)
+    QUALITY(RenderingHints.VALUE_INTERPOLATION_BILINEAR,
+         RenderingHints.VALUE_ANTIALIAS_ON,
+         RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY,
+         RenderingHints.VALUE_TEXT_ANTIALIAS_ON,
+         RenderingHints.VALUE_RENDER_QUALITY);
+
+    private static final int PROBE_WARMUP_FRAMES = 10;
+    private static final int PROBE_FRAMES = 30;
+    // A preset "holds 60 fps" if the scene renders in under 3/4 of the frame budget
+    private static final long PROBE_BUDGET_NANOS = 1_000_000_000L / Constants.TARGET_FPS * 3 / 4;
+
+    private static volatile RenderQuality current = BALANCED;
+
+    private final Object interpolation;
+    private final Object antialiasing;
+    private final Object alphaInterpolation;
+    private final Object textAntialiasing;
+    private final Object rendering;
+
+    RenderQuality(Object interpolation, Object antialiasing, Object alphaInterpolation,
+                  Object textAntialiasing, Object rendering) {
+        this.interpolation = interpolation;
+        this.antialiasing = antialiasing;
+        this.alphaInterpolation = alphaInterpolation;
+        this.textAntialiasing = textAntialiasing;
+        this.rendering = rendering;
+    }
+
+    /**
+     * Apply this preset's hints to the graphics context.
+     */
+    public void apply(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+        g.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, alphaInterpolation);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, textAntialiasing);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, rendering);
+    }
+
+    public static RenderQuality current() {
+        return current;
+    }
+
+    public static void setCurrent(RenderQuality quality) {
+        current = quality;
+        System.out.println("Render quality: " + quality);
+    }
+
+    /**
+     * Switch to the next preset, wrapping from QUALITY back to FAST.
+     */
+    public static RenderQuality cycle() {
+        RenderQuality[] values = values();
+        setCurrent(values[(current.ordinal() + 1) % values.length]);
+        return current;
+    }
+
+    /**
+     * Parse the flappy.renderQuality property; returns null for "auto".
+     */
+    public static RenderQuality fromSystemProperties() {
+        String value = System.getProperty("flappy.renderQuality", "auto").trim().toUpperCase();
+        if (value.equals("AUTO")) {
+            return null;
+        }
+        try {
+            return valueOf(value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid flappy.renderQuality: " + value);
+            return BALANCED;
+        }
+    }
+
+    /**
+     * Render the scene offscreen under each preset, best-looking first, and return
+     * the first one that holds 60 fps on the current pipeline. Falls back to FAST.
+     */
+    public static RenderQuality selfTest(GraphicsConfiguration gc, int width, int height, Consumer<Graphics2D> scene) {
+        if (gc == null) {
+            return BALANCED;
+        }
+        VolatileImage target = gc.createCompatibleVolatileImage(width, height);
+        try {
+            RenderQuality[] values = values();
+            for (int i = values.length - 1; i > 0; i--) {
+                long nanos = probe(values[i], gc, target, scene);
+                System.out.println("Render quality probe: " + values[i] + " " + (nanos / 1000) + "us/frame on " + pipelineName());
+                if (nanos < PROBE_BUDGET_NANOS) {
+                    return values[i];
+                }
+            }
+            return FAST;
+        } finally {
+            target.flush();
+        }
+    }
+
+    private static long probe(RenderQuality quality, GraphicsConfiguration gc, VolatileImage target, Consumer<Graphics2D> scene) {
+        long start = 0;
+        for (int frame = 0; frame < PROBE_WARMUP_FRAMES + PROBE_FRAMES; frame++) {
+            if (frame == PROBE_WARMUP_FRAMES) {
+                Toolkit.getDefaultToolkit().sync();
+                start = System.nanoTime();
+            }
+            target.validate(gc);
+            Graphics2D g = target.createGraphics();
+            quality.apply(g);
+            scene.accept(g);
+            g.dispose();
+        }
+        // Flush queued GPU work so the measurement includes it
+        Toolkit.getDefaultToolkit().sync();
+        return (System.nanoTime() - start) / PROBE_FRAMES;
+    }
+
+    /**
+     * Best-effort name of the active Java2D pipeline, for diagnostics.
+     */
+    public static String pipelineName() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return "Software (headless)";
+        }
+        String os = System.getProperty("os.name", "").toLowerCase();
+        if (Boolean.getBoolean("sun.java2d.opengl")) {
+            return "OpenGL";
+        }
+        if (Boolean.getBoolean("sun.java2d.metal")) {
+            return "Metal";
+        }
+        if (os.contains("win") && !"false".equals(System.getProperty("sun.java2d.d3d"))) {
+            return "Direct3D";
+        }
+        if (os.contains("linux") && !"false".equals(System.getProperty("sun.java2d.xrender"))) {
+            return "XRender";
+        }
+        return "Software";
+    }
+}
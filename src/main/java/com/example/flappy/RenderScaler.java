@@ -0,0 +1,203 @@
+package com.example.flappy;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+/**
+ * Renders the scene at an internal resolution and upscales it once to the window.
+ *
+ * Configured with system properties:
+ *   flappy.renderResolution = native (default) | 1280x720 | 75% | dynamic
+ *   flappy.renderFilter     = nearest | bilinear (default) | bicubic
+ *
+ * The scene always draws in window (logical) coordinates; only the offscreen
+ * buffer it lands in is smaller. In dynamic mode the scale drops when frame
+ * time goes over budget and climbs back when there is headroom.
+ */
+public class RenderScaler {
+    public enum Mode { NATIVE, FIXED, PERCENT, DYNAMIC }
+
+    // Dynamic mode tuning
+    private static final double MIN_SCALE = 0.5;
+    private static final double MAX_SCALE = 1.0;
+    private static final double SCALE_STEP = 0.1;
+    private static final long FRAME_BUDGET_NANOS = 1_000_000_000L / Constants.TARGET_FPS;
+    private static final int HEADROOM_FRAMES = 120; // frames with headroom before scaling back up
+    private static final int COOLDOWN_FRAMES = 30;  // frames to settle after any change
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    private final Mode mode;
+    private final int fixedWidth;
+    private final int fixedHeight;
+    private final Object filter;
+    private double scale;
+    private boolean alwaysBuffer;
+
+    private BufferedImage buffer;
+    private Graphics2D bufferGraphics; // kept for the buffer's lifetime, so a frame creates no Graphics
+    private long averageNanos;
+    private int headroomFrames;
+    private int cooldownFrames;
+
+    public RenderScaler(Mode mode, int fixedWidth, int fixedHeight, double scale, Object filter) {
+        this.mode = mode;
+        this.fixedWidth = fixedWidth;
+        this.fixedHeight = fixedHeight;
+        this.scale = scale;
+        this.filter = filter;
+    }
+
+    /**
+     * Build a scaler from the flappy.renderResolution and flappy.renderFilter properties.
+     * Unparseable values fall back to native resolution with bilinear filtering.
+     */
+    public static RenderScaler fromSystemProperties() {
+        String resolution = System.getProperty("flappy.renderResolution", "native").trim().toLowerCase();
+        Object filter = parseFilter(System.getProperty("flappy.renderFilter", "bilinear"));
+        try {
+            if (resolution.equals("dynamic")) {
+                return new RenderScaler(Mode.DYNAMIC, 0, 0, MAX_SCALE, filter);
+            }
+            if (resolution.endsWith("%")) {
+                double percent = Double.parseDouble(resolution.substring(0, resolution.length() - 1));
+                double scale = Math.max(0.1, Math.min(1.0, percent / 100.0));
+                return new RenderScaler(Mode.PERCENT, 0, 0, scale, filter);
+            }
+            int x = resolution.indexOf('x');
+            if (x > 0) {
+                int width = Integer.parseInt(resolution.substring(0, x));
+                int height = Integer.parseInt(resolution.substring(x + 1));
+                if (width > 0 && height > 0) {
+                    return new RenderScaler(Mode.FIXED, width, height, 1.0, filter);
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid flappy.renderResolution: " + resolution);
+        }
+        return new RenderScaler(Mode.NATIVE, 0, 0, 1.0, filter);
+    }
+
+    private static Object parseFilter(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "nearest":
+                return RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+            case "bicubic":
+                return RenderingHints.VALUE_INTERPOLATION_BICUBIC;
+            default:
+                return RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+        }
+    }
+
+    /**
+     * Render the scene into the internal buffer and upscale it onto the target.
+     * At full scale the scene draws straight to the target with no extra copy,
+     * unless the frame has to be kept for capture (see setAlwaysBuffer).
+     */
+    public void paint(Graphics2D target, int width, int height, Consumer<Graphics2D> scene) {
+        long start = System.nanoTime();
+
+        int bufferWidth = Math.max(1, (int) Math.round(width * getScaleX(width)));
+        int bufferHeight = Math.max(1, (int) Math.round(height * getScaleY(height)));
+
+        if (bufferWidth == width && bufferHeight == height && !alwaysBuffer) {
+            scene.accept(target);
+        } else {
+            ensureBuffer(target.getDeviceConfiguration(), bufferWidth, bufferHeight);
+            Graphics2D g = bufferGraphics;
+            g.setTransform(IDENTITY);
+            g.scale((double) bufferWidth / width, (double) bufferHeight / height);
+            scene.accept(g);
+
+            target.setRenderingHint(RenderingHints.KEY_INTERPOLATION, filter);
+            target.drawImage(buffer, 0, 0, width, height, 0, 0, bufferWidth, bufferHeight, null);
+        }
+
+        if (mode == Mode.DYNAMIC) {
+            adjustScale(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Horizontal buffer-to-window ratio for the given window width.
+     */
+    public double getScaleX(int width) {
+        if (mode == Mode.FIXED) {
+            return Math.min(1.0, (double) fixedWidth / width);
+        }
+        return scale;
+    }
+
+    /**
+     * Vertical buffer-to-window ratio for the given window height.
+     */
+    public double getScaleY(int height) {
+        if (mode == Mode.FIXED) {
+            return Math.min(1.0, (double) fixedHeight / height);
+        }
+        return scale;
+    }
+
+    /**
+     * Keep every frame in the offscreen buffer, even at full scale, so it can
+     * be read back after paint. Costs one extra blit per frame.
+     */
+    public void setAlwaysBuffer(boolean alwaysBuffer) {
+        this.alwaysBuffer = alwaysBuffer;
+    }
+
+    /**
+     * The frame drawn by the last paint call, at buffer resolution, or null if
+     * it was drawn straight to the target.
+     */
+    public BufferedImage getLastFrame() {
+        return buffer;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    private void ensureBuffer(GraphicsConfiguration gc, int width, int height) {
+        if (buffer != null && buffer.getWidth() == width && buffer.getHeight() == height) {
+            return;
+        }
+        if (bufferGraphics != null) {
+            bufferGraphics.dispose();
+        }
+        buffer = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.OPAQUE)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        bufferGraphics = buffer.createGraphics();
+    }
+
+    /**
+     * Track an exponential moving average of frame time and step the scale
+     * down when over budget, or up after a sustained run of headroom.
+     */
+    private void adjustScale(long frameNanos) {
+        averageNanos = averageNanos == 0 ? frameNanos : (averageNanos * 7 + frameNanos) / 8;
+        if (cooldownFrames > 0) {
+            cooldownFrames--;
+            return;
+        }
+
+        if (averageNanos > FRAME_BUDGET_NANOS * 3 / 4 && scale > MIN_SCALE) {
+            scale = Math.max(MIN_SCALE, scale - SCALE_STEP);
+            headroomFrames = 0;
+            cooldownFrames = COOLDOWN_FRAMES;
+        } else if (averageNanos < FRAME_BUDGET_NANOS / 3 && scale < MAX_SCALE) {
+            if (++headroomFrames >= HEADROOM_FRAMES) {
+                scale = Math.min(MAX_SCALE, scale + SCALE_STEP);
+                headroomFrames = 0;
+                cooldownFrames = COOLDOWN_FRAMES;
+            }
+        } else {
+            headroomFrames = 0;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.flappy;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Checks submitted runs by replaying them: the recorded seed and flap bits
+ * go through a headless GameWorld with the same Bird (pixel masks of the
+ * run's skin included) and PipeManager as live play, set to the run's
+ * difficulty, and the run passes only if the bird dies on the claimed tick
+ * with the claimed score. Runs played on a course file are checked against
+ * the course named by flappy.course, as on the cabinets.
+ *
+ * Runs are verified on a fixed pool of worker threads behind a bounded
+ * queue; when the queue is full the submitting thread verifies the run
+ * itself, so a large backlog never piles up in memory. Each worker keeps one
+ * world per skin and resets it for every run.
+ */
+public class ReplayVerifier {
+    public enum Verdict {
+        VALID,
+        WRONG_SCORE,      // died on the claimed tick with a different score
+        WRONG_DEATH_TICK, // died earlier or later than claimed
+        UNFINISHED,       // no death recorded
+        WRONG_BIRD,       // bird size doesn't match the skin's sprite
+        OTHER_COURSE      // recorded on another course file or at a different window size
+    }
+
+    private final ThreadLocal<GameWorld[]> worlds = ThreadLocal.withInitial(this::createWorlds);
+    // Each worker maps its own copy: a Course's window moves as it is read
+    private final ThreadLocal<Course> courses = ThreadLocal.withInitial(Course::fromSystemProperties);
+    private final ThreadPoolExecutor pool;
+    private final LongAdder[] counts = new LongAdder[Verdict.values().length];
+    private final LongAdder ticksReplayed = new LongAdder();
+
+    public ReplayVerifier(int threads, int queueCapacity) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+        AtomicInteger created = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "Replay-Verifier-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Queue a run for verification; runs it on the calling thread if the queue is full.
+     */
+    public CompletableFuture<Verdict> submit(RunRecording run) {
+        return CompletableFuture.supplyAsync(() -> verify(run), pool);
+    }
+
+    /**
+     * Verify a run on the calling thread.
+     */
+    public Verdict verify(RunRecording run) {
+        Verdict verdict = replay(run, worlds.get(), courses.get());
+        counts[verdict.ordinal()].increment();
+        return verdict;
+    }
+
+    /**
+     * Wait for everything queued to finish, then stop the workers.
+     */
+    public void shutdown() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getCount(Verdict verdict) {
+        return counts[verdict.ordinal()].sum();
+    }
+
+    public long getVerified() {
+        long total = 0;
+        for (LongAdder count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public long getTicksReplayed() {
+        return ticksReplayed.sum();
+    }
+
+    public String summary() {
+        StringBuilder text = new StringBuilder("Replay verifier: " + getVerified() + " runs");
+        for (Verdict verdict : Verdict.values()) {
+            long count = getCount(verdict);
+            if (count > 0) {
+                text.append(", ").append(count).append(' ').append(verdict);
+            }
+        }
+        return text.toString();
+    }
+
+    private GameWorld[] createWorlds() {
+        GameWorld[] perSkin = new GameWorld[GameWorld.SKINS];
+        for (int i = 0; i < perSkin.length; i++) {
+            perSkin[i] = GameWorld.forSkin(i);
+        }
+        return perSkin;
+    }
+
+    private Verdict replay(RunRecording run, GameWorld[] perSkin, Course course) {
+        if (run.getDeathTick() < 0) {
+            return Verdict.UNFINISHED;
+        }
+        GameWorld world = perSkin[Math.floorMod(run.getSkin(), GameWorld.SKINS)];
+        PipeManager pipes = world.getPipeManager();
+        pipes.setCourse(run.getCourseHash() != 0 ? course : null);
+        pipes.setDifficulty(run.getPipeSpeed(), run.getPipeGap(), run.getPipeInterval());
+        if (!run.isCompatible(run.getSeed(), pipes)) {
+            return Verdict.OTHER_COURSE;
+        }
+        Bird bird = world.getBird();
+        if (bird.getWidth() != run.getBirdWidth() || bird.getHeight() != run.getBirdHeight()) {
+            return Verdict.WRONG_BIRD;
+        }
+        world.reset(run.getSeed());
+        int deathTick = run.getDeathTick();
+        // A bird still alive one tick past the claimed death is as wrong as one that died early
+        for (int t = 0; !world.isDead() && t <= deathTick; t++) {
+            world.step(run.flapAt(t));
+        }
+        ticksReplayed.add(world.getTick());
+        if (!world.isDead() || world.getTick() != deathTick) {
+            return Verdict.WRONG_DEATH_TICK;
+        }
+        return world.getScore() == run.getScore() ? Verdict.VALID : Verdict.WRONG_SCORE;
+    }
+
+    /**
+     * Verify a backlog and report verifications per second. Given a directory,
+     * checks every recording in it (default today's runs); given "synthetic",
+     * plays that many runs with a jittery bot first, a tenth of them with a
+     * doctored score or death tick, and checks them all.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.ReplayVerifier [dir | synthetic [runs]] [threads]
+     */
+    public static void main(String[] args) throws Exception {
+        boolean synthetic = args.length > 0 && args[0].equals("synthetic");
+        int runCount = synthetic && args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int threadArg = synthetic ? 2 : 1;
+        int threads = args.length > threadArg ? Integer.parseInt(args[threadArg])
+                : Runtime.getRuntime().availableProcessors();
+
+        List<RunRecording> backlog;
+        boolean[] doctored = null; // the verdict each synthetic run must get: VALID unless doctored
+        if (synthetic) {
+            backlog = new ArrayList<>(runCount);
+            doctored = new boolean[runCount];
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < runCount; i++) {
+                int skin = i % GameWorld.SKINS;
+                RunRecording run = playSynthetic(new Bird(GameWorld.skinSprite(skin)), skin, random.nextLong(), random);
+                if (i % 10 == 9) {
+                    boolean score = random.nextBoolean();
+                    run.finish(run.getScore() + (score ? 1 : 0), run.getDeathTick() + (score ? 0 : 7));
+                    doctored[i] = true;
+                }
+                backlog.add(run);
+            }
+        } else {
+            Path dir = args.length > 0 ? Paths.get(args[0]) : RunRecording.dailyDirectory(LocalDate.now());
+            backlog = RunRecording.loadAll(dir);
+            System.out.println("Loaded " + backlog.size() + " finished runs from " + dir);
+        }
+
+        ReplayVerifier verifier = new ReplayVerifier(threads, threads * 64);
+        // Warm up the JIT on a slice of the backlog, then start the count from zero
+        ReplayVerifier warm = new ReplayVerifier(1, 1);
+        for (int i = 0; i < Math.min(backlog.size(), 500); i++) {
+            warm.verify(backlog.get(i));
+        }
+        warm.shutdown();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Verdict>> results = new ArrayList<>(backlog.size());
+        for (RunRecording run : backlog) {
+            results.add(verifier.submit(run));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[0])).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        verifier.shutdown();
+
+        System.out.println(verifier.summary());
+        System.out.printf("%d threads: %.0f verifications/s, %.1f M ticks/s (%d ticks per run on average)%n", threads,
+                verifier.getVerified() / seconds, verifier.getTicksReplayed() / seconds / 1e6,
+                verifier.getTicksReplayed() / Math.max(1, verifier.getVerified()));
+        if (synthetic) {
+            int doctoredCount = 0;
+            int caught = 0;
+            int honestRejected = 0;
+            for (int i = 0; i < doctored.length; i++) {
+                boolean valid = results.get(i).join() == Verdict.VALID;
+                if (doctored[i]) {
+                    doctoredCount++;
+                    caught += valid ? 0 : 1;
+                } else {
+                    honestRejected += valid ? 0 : 1;
+                }
+            }
+            System.out.println(caught + " of " + doctoredCount + " doctored runs rejected, " + honestRejected
+                    + " honest runs rejected");
+            System.exit(caught == doctoredCount && honestRejected == 0 ? 0 : 1);
+        }
+    }
+
+    /**
+     * Play one run with a bot that aims for the gap's centre with random error, recording it as GamePanel does.
+     */
+    private static RunRecording playSynthetic(Bird bird, int skin, long seed, SplittableRandom random) {
+        GameWorld world = new GameWorld(bird, new PipeManager(null, null));
+        world.reset(seed);
+        RunRecording run = new RunRecording(seed, skin, bird.getWidth(), bird.getHeight(), world.getPipeManager());
+        int aim = 0;
+        while (!world.isDead()) {
+            if (world.getTick() % 30 == 0) {
+                aim = random.nextInt(-60, 61);
+            }
+            Pipe next = world.nextPipe();
+            int target = (next != null ? next.getGapY() : Constants.BIRD_START_Y) + aim;
+            boolean flap = bird.getVelY() > 0 && bird.getY() + bird.getHeight() / 2 > target;
+            run.record(flap);
+            world.step(flap);
+        }
+        run.finish(world.getScore(), (int) world.getTick());
+        return run;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.flappy;
+
+import java.util.Arrays;
+
+/**
+ * The last few seconds of a GameWorld, one WorldSnapshot per tick, for
+ * practice-mode rewinding.
+ *
+ * Frames are encoded into one preallocated byte ring: every KEYFRAME_INTERVAL
+ * ticks a keyframe, and in between deltas against that keyframe, so any tick
+ * decodes from at most two frames. When the ring is full the oldest frames are
+ * dropped, together with any deltas whose keyframe went with them. Recording
+ * after a rewind discards the ticks that were rewound past. Nothing is
+ * allocated after construction unless more pipes show up than the ring was
+ * sized for, when it doubles once rather than give up rewind ticks.
+ */
+public class RewindBuffer {
+    public static final int KEYFRAME_INTERVAL = 60;
+
+    private final int capacity; // ticks
+    private byte[] data;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final long[] keyTicks; // tick of the keyframe each slot was encoded against
+
+    private long oldest;
+    private long newest = -1;
+    private int writePos;
+
+    private final int[] state = new int[WorldSnapshot.MAX_INTS];
+    private final int[] key = new int[WorldSnapshot.MAX_INTS];
+    private int keyLength;
+    private long keyTick = -1; // which keyframe is decoded in key
+    private final byte[] scratch = new byte[WorldSnapshot.MAX_BYTES];
+
+    /**
+     * Buffer that can always rewind at least the given number of ticks. The
+     * ring starts out sized for every frame at its longest encoding with the
+     * given number of pipes (PipeManager.getLivePipeBound) and grows if a
+     * course puts more on screen.
+     */
+    public RewindBuffer(int ticks, int pipes) {
+        // Dropping a keyframe drops up to an interval of deltas with it
+        this.capacity = Math.max(1, ticks) + KEYFRAME_INTERVAL;
+        // One extra frame covers the tail left unused when a frame wraps to the start
+        this.data = new byte[(capacity + 1) * WorldSnapshot.maxBytes(pipes)];
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+        this.keyTicks = new long[capacity];
+    }
+
+    public void clear() {
+        oldest = 0;
+        newest = -1;
+        writePos = 0;
+        keyTick = -1;
+    }
+
+    /**
+     * Record the world's current tick. Call after every step (and once at the
+     * start of a run).
+     */
+    public void record(GameWorld world) {
+        long tick = world.getTick();
+        if (!isEmpty() && tick <= newest) {
+            // Resumed after a rewind: the rewound ticks are no longer the future
+            if (tick <= oldest) {
+                clear();
+            } else {
+                newest = tick - 1;
+                writePos = offsets[slot(newest)] + lengths[slot(newest)];
+                if (keyTick > newest) {
+                    keyTick = -1;
+                }
+            }
+        }
+        if (!isEmpty() && tick != newest + 1) {
+            clear();
+        }
+
+        int stateLength = WorldSnapshot.capture(world, state);
+        boolean keyframe = isEmpty() || tick - keyTicks[slot(newest)] >= KEYFRAME_INTERVAL;
+        long frameKey = keyframe ? tick : keyTicks[slot(newest)];
+        if (!keyframe) {
+            loadKeyframe(frameKey);
+        }
+        int length = WorldSnapshot.encode(state, stateLength, keyframe ? null : key, keyLength, scratch, 0);
+        int at = makeRoom(tick, length);
+        if (!keyframe && (isEmpty() || frameKey < oldest)) {
+            // Making room dropped this frame's keyframe: store it as a keyframe instead
+            keyframe = true;
+            frameKey = tick;
+            length = WorldSnapshot.encode(state, stateLength, null, 0, scratch, 0);
+            at = makeRoom(tick, length);
+        }
+
+        if (isEmpty()) {
+            oldest = tick;
+        }
+        int slot = slot(tick);
+        System.arraycopy(scratch, 0, data, at, length);
+        offsets[slot] = at;
+        lengths[slot] = length;
+        keyTicks[slot] = frameKey;
+        writePos = at + length;
+        newest = tick;
+        if (keyframe) {
+            System.arraycopy(state, 0, key, 0, stateLength);
+            keyLength = stateLength;
+            keyTick = tick;
+        }
+    }
+
+    /**
+     * Restore the world to the tick before the newest one held, which becomes
+     * the newest. Returns false when there is nothing older to go back to.
+     */
+    public boolean stepBack(GameWorld world) {
+        if (newest <= oldest) {
+            return false;
+        }
+        newest--;
+        int slot = slot(newest);
+        // The next tick recorded follows this one, so the space after it is free again
+        writePos = offsets[slot] + lengths[slot];
+        long frameKey = keyTicks[slot];
+        if (frameKey == newest) {
+            WorldSnapshot.decode(data, offsets[slot], null, 0, state);
+        } else {
+            loadKeyframe(frameKey);
+            WorldSnapshot.decode(data, offsets[slot], key, keyLength, state);
+        }
+        WorldSnapshot.apply(state, world);
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return newest < oldest;
+    }
+
+    /**
+     * Number of ticks that can currently be rewound.
+     */
+    public int getRewindableTicks() {
+        return isEmpty() ? 0 : (int) (newest - oldest);
+    }
+
+    /**
+     * Encoded bytes held for all recorded ticks.
+     */
+    public int getBytesUsed() {
+        int total = 0;
+        for (long t = oldest; t <= newest; t++) {
+            total += lengths[slot(t)];
+        }
+        return total;
+    }
+
+    /**
+     * Choose where a frame of the given length goes, dropping the frames that
+     * exceed the tick capacity and growing the ring if it would overwrite one
+     * that is still inside it.
+     */
+    private int makeRoom(long tick, int length) {
+        while (!isEmpty() && tick - oldest >= capacity) {
+            oldest++;
+        }
+        // Deltas are useless without their keyframe
+        while (!isEmpty() && keyTicks[slot(oldest)] < oldest) {
+            oldest++;
+        }
+        int at = writePos + length > data.length ? 0 : writePos;
+        if (!isEmpty() && overlaps(slot(oldest), at, length)) {
+            grow(length);
+            at = writePos;
+        }
+        return at;
+    }
+
+    /**
+     * Double the ring, packing the held frames at its start in tick order.
+     */
+    private void grow(int length) {
+        byte[] grown = new byte[Math.max(data.length * 2, getBytesUsed() + length)];
+        int pos = 0;
+        for (long t = oldest; t <= newest; t++) {
+            int slot = slot(t);
+            System.arraycopy(data, offsets[slot], grown, pos, lengths[slot]);
+            offsets[slot] = pos;
+            pos += lengths[slot];
+        }
+        System.err.println("Rewind buffer grown to " + grown.length + " bytes for " + length + "-byte frames");
+        data = grown;
+        writePos = pos;
+    }
+
+    private boolean overlaps(int slot, int at, int length) {
+        return offsets[slot] < at + length && at < offsets[slot] + lengths[slot];
+    }
+
+    private void loadKeyframe(long tick) {
+        if (keyTick != tick) {
+            keyLength = WorldSnapshot.decode(data, offsets[slot(tick)], null, 0, key);
+            keyTick = tick;
+        }
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % capacity);
+    }
+
+    /**
+     * Benchmark and round-trip check: record an autopilot run, rewind part of
+     * it, replay the same inputs and compare against the original states.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.RewindBuffer [seconds]
+     */
+    public static void main(String[] args) {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int ticks = seconds * Constants.TARGET_FPS;
+        int runTicks = ticks * 3;
+        int rewindTicks = ticks / 2;
+
+        GameWorld world = GameWorld.headless(Constants.BIRD_DISPLAY_WIDTH, Constants.BIRD_DISPLAY_WIDTH * 7 / 10);
+        int pipes = world.getPipeManager().getLivePipeBound();
+        RewindBuffer warmup = new RewindBuffer(ticks, pipes);
+        for (int i = 0; i < 200_000; i++) {
+            // JIT warm-up with a simple flap rule
+            if (world.isDead() || i == 0) {
+                world.reset(i);
+            }
+            world.step(world.getBird().getVelY() > 3);
+            warmup.record(world);
+            if (i % 1000 == 999) {
+                for (int back = 0; back < 100; back++) {
+                    warmup.stepBack(world);
+                }
+            }
+        }
+        world.reset(42);
+        Autopilot autopilot = new Autopilot();
+        RewindBuffer rewind = new RewindBuffer(ticks, pipes);
+        boolean[] flaps = new boolean[runTicks + 1];
+        int[][] states = new int[runTicks + 1][];
+        int[] lengths = new int[runTicks + 1];
+
+        rewind.record(world);
+        long recordNanos = 0;
+        for (int t = 1; t <= runTicks && !world.isDead(); t++) {
+            flaps[t] = autopilot.decide(world.getBird(), world.getPipeManager());
+            world.step(flaps[t]);
+            states[t] = new int[WorldSnapshot.MAX_INTS];
+            lengths[t] = WorldSnapshot.capture(world, states[t]);
+            long start = System.nanoTime();
+            rewind.record(world);
+            recordNanos += System.nanoTime() - start;
+        }
+        long endTick = world.getTick();
+        System.out.printf("%d ticks held in %d bytes (%.1f bytes/tick) of a %d-byte ring, record %.0f ns/tick%n",
+                rewind.getRewindableTicks() + 1, rewind.getBytesUsed(),
+                (double) rewind.getBytesUsed() / (rewind.getRewindableTicks() + 1), rewind.data.length,
+                (double) recordNanos / endTick);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rewindTicks; i++) {
+            rewind.stepBack(world);
+        }
+        long rewindNanos = System.nanoTime() - start;
+        int[] restored = new int[WorldSnapshot.MAX_INTS];
+        int rewoundTick = (int) world.getTick();
+        boolean rewoundOk = rewoundTick == endTick - rewindTicks
+                && sameState(restored, WorldSnapshot.capture(world, restored), states[rewoundTick], lengths[rewoundTick]);
+
+        // Replay the same inputs from the rewound tick; the course must come out identical
+        boolean replayOk = true;
+        for (long t = world.getTick() + 1; t <= endTick; t++) {
+            world.step(flaps[(int) t]);
+            rewind.record(world);
+            replayOk &= sameState(restored, WorldSnapshot.capture(world, restored), states[(int) t], lengths[(int) t]);
+        }
+        System.out.printf("rewound %d ticks at %.0f ns/tick: %s, replay: %s%n", rewindTicks,
+                (double) rewindNanos / rewindTicks, rewoundOk ? "OK" : "MISMATCH", replayOk ? "OK" : "MISMATCH");
+    }
+
+    private static boolean sameState(int[] a, int aLength, int[] b, int bLength) {
+        return Arrays.equals(a, 0, aLength, b, 0, bLength);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.flappy;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A bird sprite pre-drawn at display size for every rotation step.
+ *
+ * Rotated drawImage goes through Java2D's transform pipeline, which allocates
+ * on every call; blitting a pre-rotated frame is an unscaled copy that does
+ * not. Frames use the same square canvas and centre as CollisionMask, so what
+ * is drawn is exactly what collides. Built once per skin and shared.
+ */
+public class RotatedSprites {
+    private static final Map<BufferedImage, RotatedSprites> cache = new IdentityHashMap<>();
+
+    private final BufferedImage[] frames = new BufferedImage[CollisionMask.ROTATION_STEPS];
+    private final int offsetX; // frame origin relative to the bird's x, y
+    private final int offsetY;
+
+    private RotatedSprites(GraphicsConfiguration gc, BufferedImage sprite, int displayWidth, int displayHeight) {
+        int size = (int) Math.ceil(Math.hypot(displayWidth, displayHeight)) + 2;
+        offsetX = displayWidth / 2 - size / 2;
+        offsetY = displayHeight / 2 - size / 2;
+        for (int i = 0; i < frames.length; i++) {
+            float degrees = -Constants.MAX_ROTATION_DEGREES + i * Constants.ROTATION_SPEED;
+            BufferedImage frame = gc != null
+                    ? gc.createCompatibleImage(size, size, Transparency.TRANSLUCENT)
+                    : new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = frame.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.translate(size / 2, size / 2);
+            g.rotate(Math.toRadians(degrees));
+            g.translate(-displayWidth / 2, -displayHeight / 2);
+            g.drawImage(sprite, 0, 0, displayWidth, displayHeight, null);
+            g.dispose();
+            frames[i] = frame;
+        }
+    }
+
+    /**
+     * Frames for a sprite drawn at the given display size, built on first use.
+     */
+    public static synchronized RotatedSprites forSprite(GraphicsConfiguration gc, BufferedImage sprite,
+                                                        int displayWidth, int displayHeight) {
+        RotatedSprites sprites = cache.get(sprite);
+        if (sprites == null) {
+            sprites = new RotatedSprites(gc, sprite, displayWidth, displayHeight);
+            cache.put(sprite, sprites);
+        }
+        return sprites;
+    }
+
+    /**
+     * Draw the frame for a rotation in degrees with the bird's top-left at x, y.
+     */
+    public void draw(Graphics2D g, int x, int y, float rotation) {
+        g.drawImage(frames[CollisionMask.indexFor(rotation)], x + offsetX, y + offsetY, null);
+    }
+}
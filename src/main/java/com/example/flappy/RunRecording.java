@@ -0,0 +1,274 @@
+package com.example.flappy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One run as the seed it was played on plus a bit per tick saying whether the
+ * bird flapped. Replaying the inputs through GameWorld.reset(seed) on the same
+ * course and difficulty reproduces the run exactly, so this is all a ghost
+ * (or a verifier) needs.
+ *
+ * File format (big-endian): "FBRN" u32 version, i64 seed, i64 courseHash
+ * (Course.hash, 0 for random pipes), i32 pipeSpeed, i32 pipeGap,
+ * i32 pipeInterval, i32 skin, i32 windowWidth, i32 windowHeight,
+ * i32 birdWidth, i32 birdHeight, i32 score, i32 deathTick, i32 ticks, then
+ * ceil(ticks / 64) i64 flap words. Version 1 files have no course or
+ * difficulty fields and were played on random pipes at the defaults.
+ */
+public class RunRecording {
+    private static final int MAGIC = 0x4642524E; // "FBRN"
+    private static final int VERSION = 2;
+    public static final String EXTENSION = ".fbrun";
+
+    private final long seed;
+    private final long courseHash;
+    private final int pipeSpeed;
+    private final int pipeGap;
+    private final int pipeInterval;
+    private final int skin;
+    private final int windowWidth;
+    private final int windowHeight;
+    private final int birdWidth;
+    private final int birdHeight;
+    private int score;
+    private int deathTick = -1; // -1 while the run is still going
+    private int ticks;
+    private long[] flaps = new long[64];
+
+    /**
+     * Start recording a run played with the given pipes' course and difficulty.
+     */
+    public RunRecording(long seed, int skin, int birdWidth, int birdHeight, PipeManager pipes) {
+        this(seed, pipes.getCourseHash(), pipes.getBaseSpeed(), pipes.getGapHeight(), pipes.getSpawnInterval(), skin,
+                Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT, birdWidth, birdHeight);
+    }
+
+    private RunRecording(long seed, long courseHash, int pipeSpeed, int pipeGap, int pipeInterval, int skin,
+                         int windowWidth, int windowHeight, int birdWidth, int birdHeight) {
+        this.seed = seed;
+        this.courseHash = courseHash;
+        this.pipeSpeed = pipeSpeed;
+        this.pipeGap = pipeGap;
+        this.pipeInterval = pipeInterval;
+        this.skin = skin;
+        this.windowWidth = windowWidth;
+        this.windowHeight = windowHeight;
+        this.birdWidth = birdWidth;
+        this.birdHeight = birdHeight;
+    }
+
+    /**
+     * Course seed shared by every cabinet on the given day.
+     */
+    public static long dailySeed(LocalDate date) {
+        long z = date.toEpochDay() * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Directory holding the runs recorded on the given day.
+     */
+    public static Path dailyDirectory(LocalDate date) {
+        return Paths.get(System.getProperty("user.home"), Constants.HIGH_SCORE_DIR, "runs", date.toString());
+    }
+
+    /**
+     * Append the input for the next tick.
+     */
+    public void record(boolean flap) {
+        int word = ticks >>> 6;
+        if (word == flaps.length) {
+            flaps = Arrays.copyOf(flaps, flaps.length * 2);
+        }
+        if (flap) {
+            flaps[word] |= 1L << ticks;
+        }
+        ticks++;
+    }
+
+    /**
+     * Whether the bird flapped on the given tick (0 = the first step of the run).
+     */
+    public boolean flapAt(int tick) {
+        return tick < ticks && (flaps[tick >>> 6] & (1L << tick)) != 0;
+    }
+
+    /**
+     * Mark the run as over with the final score and the tick the bird died on.
+     */
+    public void finish(int score, int deathTick) {
+        this.score = score;
+        this.deathTick = deathTick;
+    }
+
+    /**
+     * Whether this run was played on the same course as the given pipes make:
+     * same seed, course file, difficulty and window size.
+     */
+    public boolean isCompatible(long courseSeed, PipeManager pipes) {
+        return seed == courseSeed && courseHash == pipes.getCourseHash()
+                && pipeSpeed == pipes.getBaseSpeed() && pipeGap == pipes.getGapHeight()
+                && pipeInterval == pipes.getSpawnInterval()
+                && windowWidth == Constants.WINDOW_WIDTH && windowHeight == Constants.WINDOW_HEIGHT;
+    }
+
+    public void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            write(out);
+        }
+    }
+
+    public static RunRecording load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return read(in);
+        }
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(seed);
+        out.writeLong(courseHash);
+        out.writeInt(pipeSpeed);
+        out.writeInt(pipeGap);
+        out.writeInt(pipeInterval);
+        out.writeInt(skin);
+        out.writeInt(windowWidth);
+        out.writeInt(windowHeight);
+        out.writeInt(birdWidth);
+        out.writeInt(birdHeight);
+        out.writeInt(score);
+        out.writeInt(deathTick);
+        out.writeInt(ticks);
+        for (int i = 0, words = (ticks + 63) >>> 6; i < words; i++) {
+            out.writeLong(flaps[i]);
+        }
+    }
+
+    public static RunRecording read(DataInputStream in) throws IOException {
+        int version = in.readInt() == MAGIC ? in.readInt() : -1;
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Not a run recording");
+        }
+        long seed = in.readLong();
+        long courseHash = 0;
+        int pipeSpeed = Constants.PIPE_SPEED;
+        int pipeGap = Constants.PIPE_GAP_HEIGHT;
+        int pipeInterval = Constants.PIPE_SPAWN_INTERVAL;
+        if (version >= 2) {
+            courseHash = in.readLong();
+            pipeSpeed = in.readInt();
+            pipeGap = in.readInt();
+            pipeInterval = in.readInt();
+            if (pipeSpeed < 1 || pipeGap < 1 || pipeInterval < 1) {
+                throw new IOException("Bad difficulty");
+            }
+        }
+        RunRecording run = new RunRecording(seed, courseHash, pipeSpeed, pipeGap, pipeInterval, in.readInt(),
+                in.readInt(), in.readInt(), in.readInt(), in.readInt());
+        run.score = in.readInt();
+        run.deathTick = in.readInt();
+        run.ticks = in.readInt();
+        if (run.ticks < 0) {
+            throw new IOException("Negative tick count");
+        }
+        run.flaps = new long[Math.max(1, (run.ticks + 63) >>> 6)];
+        for (int i = 0, words = (run.ticks + 63) >>> 6; i < words; i++) {
+            run.flaps[i] = in.readLong();
+        }
+        return run;
+    }
+
+    /**
+     * Load every finished recording in a directory, skipping unreadable files.
+     */
+    public static List<RunRecording> loadAll(Path dir) {
+        List<RunRecording> runs = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return runs;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    RunRecording run = load(file);
+                    if (run.deathTick >= 0) {
+                        runs.add(run);
+                    }
+                } catch (IOException e) {
+                    System.err.println("Skipping run " + file + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to list runs in " + dir + ": " + e.getMessage());
+        }
+        return runs;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Course.hash of the course file the run was played on, 0 for random pipes.
+     */
+    public long getCourseHash() {
+        return courseHash;
+    }
+
+    public int getPipeSpeed() {
+        return pipeSpeed;
+    }
+
+    public int getPipeGap() {
+        return pipeGap;
+    }
+
+    public int getPipeInterval() {
+        return pipeInterval;
+    }
+
+    public int getSkin() {
+        return skin;
+    }
+
+    public int getBirdWidth() {
+        return birdWidth;
+    }
+
+    public int getBirdHeight() {
+        return birdHeight;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDeathTick() {
+        return deathTick;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * The packed flap bits (bit t of word t / 64 is tick t). Shared, not copied.
+     */
+    long[] getFlapBits() {
+        return flaps;
+    }
+}
@@ -6,7 +6,6 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
@@ -109,6 +108,13 @@ public class SelectionPanel extends JPanel {
         this.onStartCallback = callback;
     }
 
+    /**
+     * Index of the chosen skin, or 0 if none was picked.
+     */
+    public int getSelectedIndex() {
+        return selectedIndex >= 0 && selectedIndex < birdSprites.length ? selectedIndex : 0;
+    }
+
     public BufferedImage getSelectedBirdSprite() {
         if (selectedIndex >= 0 && selectedIndex < birdSprites.length && birdSprites[selectedIndex] != null) {
             return birdSprites[selectedIndex];
@@ -121,8 +127,7 @@ public class SelectionPanel extends JPanel {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        RenderQuality.current().apply(g2d);
 
         // Draw background
         if (background != null) {
@@ -0,0 +1,68 @@
+package com.example.flappy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the latest WorldSnapshot from one thread to another without locks
+ * or allocation (triple buffering).
+ *
+ * The producer fills back() and publishes it; the consumer takes the newest
+ * published snapshot, if any, into front(). Snapshots the consumer was too
+ * slow to take are simply replaced, so it always sees the most recent one.
+ */
+final class SnapshotExchange {
+    private static final int INDEX = 3;
+    private static final int FRESH = 4;
+
+    private final int[][] buffers = new int[3][WorldSnapshot.MAX_INTS];
+    private final int[] lengths = new int[3];
+    private final int[] gameStates = new int[3];
+    private final int[] skins = new int[3];
+    private final AtomicInteger middle = new AtomicInteger(1); // buffer index, plus FRESH once published
+    private int back;      // producer only
+    private int front = 2; // consumer only
+
+    /**
+     * Buffer for the producer to capture the next snapshot into.
+     */
+    int[] back() {
+        return buffers[back];
+    }
+
+    /**
+     * Publish the snapshot in back(), with its length, GameState ordinal and bird skin.
+     */
+    void publish(int length, int gameState, int skin) {
+        lengths[back] = length;
+        gameStates[back] = gameState;
+        skins[back] = skin;
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /**
+     * Move the newest published snapshot to front(); false if nothing new was published.
+     */
+    boolean take() {
+        if ((middle.get() & FRESH) == 0) {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX;
+        return true;
+    }
+
+    int[] front() {
+        return buffers[front];
+    }
+
+    int frontLength() {
+        return lengths[front];
+    }
+
+    int frontGameState() {
+        return gameStates[front];
+    }
+
+    int frontSkin() {
+        return skins[front];
+    }
+}
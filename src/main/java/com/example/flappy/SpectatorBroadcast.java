@@ -0,0 +1,336 @@
+package com.example.flappy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams the live game to spectator screens over TCP.
+ *
+ * The game thread only captures a WorldSnapshot into a SnapshotExchange each
+ * tick; it never touches a socket or wakes another thread. A broadcast thread
+ * polls for the newest snapshot, encodes it once (a keyframe every
+ * KEYFRAME_INTERVAL frames, otherwise a delta against the last keyframe),
+ * and appends the frame to every spectator's direct output buffer, which it
+ * drains with non-blocking writes. A spectator that falls a buffer behind
+ * skips frames until the next regular keyframe, and is disconnected once it
+ * has missed MAX_SKIPPED_KEYFRAMES keyframes in a row (a hung screen), so it
+ * never changes what the others receive. A new spectator forces a keyframe,
+ * so late joiners catch up at once. If the broadcast thread falls behind the
+ * game, it skips ticks.
+ *
+ * Stream (little-endian): on connect i32 magic, u16 width, u16 height; then
+ * per frame u8 type (KEYFRAME or DELTA), u8 GameState ordinal, u8 skin,
+ * u8 reserved, u16 length, and length bytes of WorldSnapshot encoding.
+ */
+public class SpectatorBroadcast {
+    public static final int MAGIC = 0x53504C46; // "FLPS"
+    public static final int HELLO_BYTES = 8;
+    public static final int FRAME_HEADER_BYTES = 6;
+    public static final int KEYFRAME = 1;
+    public static final int DELTA = 2;
+    public static final int KEYFRAME_INTERVAL = 60;
+
+    private static final int MAX_SPECTATORS = 64;
+    private static final int MAX_SKIPPED_KEYFRAMES = 3; // about 3 s without draining at KEYFRAME_INTERVAL
+    private static final int CLIENT_BUFFER_BYTES = 64 * 1024;
+    private static final long POLL_NANOS = 1_000_000;
+
+    private final ServerSocketChannel server;
+    private final SnapshotExchange exchange = new SnapshotExchange();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Broadcast thread only
+    private final SocketChannel[] clients = new SocketChannel[MAX_SPECTATORS];
+    private final ByteBuffer[] buffers = new ByteBuffer[MAX_SPECTATORS];
+    private final boolean[] waitingForKey = new boolean[MAX_SPECTATORS];
+    private final int[] skippedKeyframes = new int[MAX_SPECTATORS];
+    private int clientCount;
+    private final int[] key = new int[WorldSnapshot.MAX_INTS];
+    private int keyLength;
+    private int sinceKey;
+    private boolean forceKeyframe;
+    private boolean haveFrame;
+    private final byte[] frame = new byte[FRAME_HEADER_BYTES + WorldSnapshot.MAX_BYTES];
+    private long framesSent;
+    private long bytesEncoded;
+    private long framesSkipped;
+    private int peakSpectators;
+
+    public SpectatorBroadcast(SocketAddress address) throws IOException {
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        for (int i = 0; i < MAX_SPECTATORS; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(CLIENT_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        thread = new Thread(this::run, "Spectator-Broadcast");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("Broadcasting to spectators on " + server.getLocalAddress());
+    }
+
+    /**
+     * Broadcaster configured by flappy.broadcast (a port, or host:port to bind), or null when off.
+     */
+    public static SpectatorBroadcast fromSystemProperties() {
+        String value = System.getProperty("flappy.broadcast");
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new SpectatorBroadcast(value.contains(":")
+                    ? EnvServer.parseAddress(value.trim())
+                    : new InetSocketAddress(Integer.parseInt(value.trim())));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Spectator broadcast unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Offer this tick's world to the spectators. Called on the game thread;
+     * a snapshot capture and one atomic swap, nothing else.
+     */
+    public void publish(GameWorld world, GameState state, int skin) {
+        int length = WorldSnapshot.capture(world, exchange.back());
+        exchange.publish(length, state.ordinal(), skin);
+    }
+
+    public SocketAddress getAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    public void shutdown() {
+        running = false;
+        try {
+            thread.join(1000);
+            server.close();
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Failed to stop spectator broadcast: " + e.getMessage());
+        }
+        for (int i = 0; i < clientCount; i++) {
+            closeQuietly(clients[i]);
+        }
+        System.out.println(summary());
+    }
+
+    public String summary() {
+        return String.format("Spectator broadcast: %d frames, %.1f bytes/frame, peak %d spectators, %d ticks skipped",
+                framesSent, framesSent == 0 ? 0.0 : (double) bytesEncoded / framesSent, peakSpectators, framesSkipped);
+    }
+
+    private void run() {
+        while (running) {
+            acceptSpectators();
+            if (exchange.take()) {
+                haveFrame = true;
+                broadcast();
+            } else if (forceKeyframe && haveFrame) {
+                // Someone joined while the game is idle (game over): resend the last state as a keyframe
+                broadcast();
+            }
+            for (int i = clientCount - 1; i >= 0; i--) {
+                flush(i);
+            }
+            LockSupport.parkNanos(POLL_NANOS);
+        }
+    }
+
+    private void acceptSpectators() {
+        try {
+            SocketChannel channel;
+            while ((channel = server.accept()) != null) {
+                if (clientCount == MAX_SPECTATORS) {
+                    System.err.println("Too many spectators, refusing " + channel.getRemoteAddress());
+                    closeQuietly(channel);
+                    continue;
+                }
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                ByteBuffer out = buffers[clientCount];
+                out.clear();
+                out.putInt(MAGIC).putShort((short) Constants.WINDOW_WIDTH).putShort((short) Constants.WINDOW_HEIGHT);
+                clients[clientCount] = channel;
+                waitingForKey[clientCount] = true;
+                skippedKeyframes[clientCount] = 0;
+                clientCount++;
+                peakSpectators = Math.max(peakSpectators, clientCount);
+                forceKeyframe = true;
+                System.out.println("Spectator joined from " + channel.getRemoteAddress());
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to accept spectator: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Encode the snapshot in the exchange's front buffer once and queue it for every spectator.
+     */
+    private void broadcast() {
+        int[] state = exchange.front();
+        int length = exchange.frontLength();
+        boolean keyframe = forceKeyframe || keyLength == 0 || sinceKey >= KEYFRAME_INTERVAL;
+        int payload = WorldSnapshot.encode(state, length, keyframe ? null : key, keyLength, frame, FRAME_HEADER_BYTES);
+        if (keyframe) {
+            System.arraycopy(state, 0, key, 0, length);
+            keyLength = length;
+            sinceKey = 0;
+            forceKeyframe = false;
+        }
+        sinceKey++;
+        frame[0] = (byte) (keyframe ? KEYFRAME : DELTA);
+        frame[1] = (byte) exchange.frontGameState();
+        frame[2] = (byte) exchange.frontSkin();
+        frame[3] = 0;
+        frame[4] = (byte) payload;
+        frame[5] = (byte) (payload >>> 8);
+        int total = FRAME_HEADER_BYTES + payload;
+        framesSent++;
+        bytesEncoded += total;
+
+        // Backwards, so a dropped spectator's slot is refilled from an already visited one
+        for (int i = clientCount - 1; i >= 0; i--) {
+            ByteBuffer out = buffers[i];
+            if (waitingForKey[i] && !keyframe) {
+                continue;
+            }
+            if (out.remaining() < total) {
+                // Too far behind: drop frames until the next regular keyframe, or the spectator if it stays stuck
+                waitingForKey[i] = true;
+                framesSkipped++;
+                if (keyframe && ++skippedKeyframes[i] > MAX_SKIPPED_KEYFRAMES) {
+                    System.out.println("Spectator stopped reading, disconnecting");
+                    removeSpectator(i);
+                }
+                continue;
+            }
+            out.put(frame, 0, total);
+            waitingForKey[i] = false;
+            if (keyframe) {
+                skippedKeyframes[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Write as much of a spectator's queued output as the socket takes without blocking.
+     */
+    private void flush(int i) {
+        ByteBuffer out = buffers[i];
+        if (out.position() == 0) {
+            return;
+        }
+        out.flip();
+        try {
+            clients[i].write(out);
+            out.compact();
+        } catch (IOException e) {
+            System.out.println("Spectator left: " + e.getMessage());
+            removeSpectator(i);
+        }
+    }
+
+    private void removeSpectator(int i) {
+        closeQuietly(clients[i]);
+        int last = --clientCount;
+        // Swap the last spectator into the gap, buffers included
+        ByteBuffer freed = buffers[i];
+        clients[i] = clients[last];
+        buffers[i] = buffers[last];
+        waitingForKey[i] = waitingForKey[last];
+        skippedKeyframes[i] = skippedKeyframes[last];
+        clients[last] = null;
+        buffers[last] = freed;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // already gone
+        }
+    }
+
+    /**
+     * Load test: an autopilot game publishing at 60 ticks/s to in-process
+     * spectators, reporting the time publish() adds to the tick and whether
+     * every spectator ends up showing exactly the game's last state.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.SpectatorBroadcast [spectators] [seconds]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int spectators = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        SpectatorBroadcast broadcast = new SpectatorBroadcast(new InetSocketAddress("127.0.0.1", 0));
+        GameWorld world = GameWorld.headless(Constants.BIRD_DISPLAY_WIDTH, Constants.BIRD_DISPLAY_WIDTH * 7 / 10);
+        for (int i = 0; i < 50_000; i++) {
+            // JIT warm-up, as a game that has been running a while would be
+            if (world.isDead() || i == 0) {
+                world.reset(i);
+            }
+            world.step(world.getBird().getVelY() > 3);
+            broadcast.publish(world, GameState.PLAYING, 0);
+        }
+
+        SocketAddress address = broadcast.getAddress();
+        SpectatorClient[] clients = new SpectatorClient[spectators];
+        for (int i = 0; i < spectators; i++) {
+            clients[i] = new SpectatorClient(address);
+        }
+        Autopilot autopilot = new Autopilot();
+        world.reset(1);
+        long ticks = (long) seconds * Constants.TARGET_FPS;
+        long tickNanos = 1_000_000_000L / Constants.TARGET_FPS;
+        long simulateNanos = 0;
+        long publishNanos = 0;
+        long worstPublish = 0;
+        long next = System.nanoTime();
+        for (long t = 0; t < ticks; t++) {
+            if (world.isDead()) {
+                world.reset(t);
+            }
+            long start = System.nanoTime();
+            world.step(autopilot.decide(world.getBird(), world.getPipeManager()));
+            long simulated = System.nanoTime();
+            broadcast.publish(world, GameState.PLAYING, 0);
+            long elapsed = System.nanoTime() - simulated;
+            if (t > ticks / 10) { // past warm-up
+                simulateNanos += simulated - start;
+                publishNanos += elapsed;
+                worstPublish = Math.max(worstPublish, elapsed);
+            }
+            next += tickNanos;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+            }
+        }
+        Thread.sleep(500); // let the last frame arrive
+
+        int[] expected = new int[WorldSnapshot.MAX_INTS];
+        int expectedLength = WorldSnapshot.capture(world, expected);
+        int inSync = 0;
+        for (SpectatorClient client : clients) {
+            client.take();
+            if (Arrays.equals(client.getState(), 0, client.getStateLength(), expected, 0, expectedLength)) {
+                inSync++;
+            }
+            client.shutdown();
+        }
+        long measured = ticks - ticks / 10 - 1;
+        System.out.printf("publish(): %.1f us average (%.1f%% of the tick's simulation), %.1f us worst%n",
+                publishNanos / 1000.0 / measured, 100.0 * publishNanos / simulateNanos, worstPublish / 1000.0);
+        System.out.printf("%d of %d spectators in sync with the game%n", inSync, spectators);
+        broadcast.shutdown();
+        System.exit(inSync == spectators ? 0 : 1);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.flappy;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Receives a SpectatorBroadcast stream on a background thread and keeps the
+ * newest decoded world state for the render thread to take. Reconnects every
+ * second while the game is not reachable.
+ */
+public class SpectatorClient {
+    private static final long RETRY_MILLIS = 1000;
+
+    private final SocketAddress address;
+    private final SnapshotExchange exchange = new SnapshotExchange();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean connected;
+    private volatile SocketChannel channel;
+
+    // Receive thread only
+    private final ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final byte[] payload = new byte[WorldSnapshot.MAX_BYTES];
+    private final int[] key = new int[WorldSnapshot.MAX_INTS];
+    private int keyLength;
+
+    public SpectatorClient(SocketAddress address) {
+        this.address = address;
+        thread = new Thread(this::run, "Spectator-Client");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Client for flappy.spectate (host:port of a game started with flappy.broadcast), or null when off.
+     */
+    public static SpectatorClient fromSystemProperties() {
+        String value = System.getProperty("flappy.spectate");
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new SpectatorClient(EnvServer.parseAddress(value.trim()));
+        } catch (RuntimeException e) {
+            System.err.println("Cannot spectate " + value + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Make the newest received state current; false if nothing new arrived.
+     */
+    public boolean take() {
+        return exchange.take();
+    }
+
+    /**
+     * The current state (see WorldSnapshot), valid until the next take().
+     */
+    public int[] getState() {
+        return exchange.front();
+    }
+
+    public int getStateLength() {
+        return exchange.frontLength();
+    }
+
+    public GameState getGameState() {
+        return GameState.values()[exchange.frontGameState()];
+    }
+
+    public int getSkin() {
+        return exchange.frontSkin();
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public void shutdown() {
+        running = false;
+        SocketChannel current = channel;
+        if (current != null) {
+            try {
+                current.close(); // unblocks the reader
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+    }
+
+    private void run() {
+        boolean reported = false;
+        while (running) {
+            try (SocketChannel socket = SocketChannel.open(address)) {
+                channel = socket;
+                System.out.println("Spectating " + address);
+                reported = false;
+                receive(socket);
+            } catch (IOException e) {
+                if (running && !reported) {
+                    System.err.println("Spectator stream unavailable (" + e.getMessage() + "), retrying");
+                    reported = true;
+                }
+            }
+            connected = false;
+            channel = null;
+            if (running) {
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(SocketChannel socket) throws IOException {
+        in.clear();
+        keyLength = 0;
+        readAtLeast(socket, SpectatorBroadcast.HELLO_BYTES);
+        in.flip();
+        if (in.getInt() != SpectatorBroadcast.MAGIC) {
+            throw new IOException("not a spectator stream");
+        }
+        int width = in.getShort() & 0xFFFF;
+        int height = in.getShort() & 0xFFFF;
+        if (width != Constants.WINDOW_WIDTH || height != Constants.WINDOW_HEIGHT) {
+            System.err.println("Game window is " + width + "x" + height + ", ours is "
+                    + Constants.WINDOW_WIDTH + "x" + Constants.WINDOW_HEIGHT + "; the view will be offset");
+        }
+        in.compact();
+        connected = true;
+
+        while (running) {
+            in.flip();
+            while (in.remaining() >= SpectatorBroadcast.FRAME_HEADER_BYTES) {
+                int start = in.position();
+                int length = in.getShort(start + 4) & 0xFFFF;
+                if (in.remaining() < SpectatorBroadcast.FRAME_HEADER_BYTES + length) {
+                    break;
+                }
+                int type = in.get(start);
+                int gameState = in.get(start + 1);
+                int skin = in.get(start + 2);
+                in.position(start + SpectatorBroadcast.FRAME_HEADER_BYTES);
+                in.get(payload, 0, length);
+                decode(type, gameState, skin);
+            }
+            in.compact();
+            if (socket.read(in) < 0) {
+                throw new IOException("stream ended");
+            }
+        }
+    }
+
+    private void decode(int type, int gameState, int skin) {
+        int[] state = exchange.back();
+        int length;
+        if (type == SpectatorBroadcast.KEYFRAME) {
+            keyLength = WorldSnapshot.decode(payload, 0, null, 0, key);
+            System.arraycopy(key, 0, state, 0, keyLength);
+            length = keyLength;
+        } else if (keyLength > 0) {
+            length = WorldSnapshot.decode(payload, 0, key, keyLength, state);
+        } else {
+            return; // a delta before any keyframe
+        }
+        exchange.publish(length, gameState, skin);
+    }
+
+    private void readAtLeast(SocketChannel socket, int bytes) throws IOException {
+        while (in.position() < bytes) {
+            if (socket.read(in) < 0) {
+                throw new IOException("stream ended");
+            }
+        }
+    }
+}
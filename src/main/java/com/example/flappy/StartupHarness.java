@@ -0,0 +1,124 @@
+package com.example.flappy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures cold start by launching the game in child JVMs with the startup
+ * probe on, with and without the application CDS archive, and printing the
+ * median time from process launch to each milestone:
+ *   main -> frame-visible -> first-gameplay-frame
+ *
+ * Times are taken in this process when each milestone line arrives, so they
+ * include JVM boot and are comparable across releases on the same machine.
+ * The game needs a display.
+ *
+ * Usage:
+ *   java -cp flappy.jar com.example.flappy.StartupHarness [--runs 5]
+ *       [--jar target/flappy-bird-java-1.0.0.jar] [--archive target/flappy.jsa] [-- extra JVM options]
+ */
+public class StartupHarness {
+    private static final String[] MILESTONES = {"main", "frame-visible", "first-gameplay-frame"};
+    private static final long TIMEOUT_SECONDS = 60;
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        Path jar = Paths.get("target", "flappy-bird-java-1.0.0.jar");
+        Path archive = Paths.get("target", "flappy.jsa");
+        List<String> jvmOptions = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--runs": runs = Integer.parseInt(args[++i]); break;
+                case "--jar": jar = Paths.get(args[++i]); break;
+                case "--archive": archive = Paths.get(args[++i]); break;
+                case "--":
+                    jvmOptions.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                    i = args.length;
+                    break;
+                default:
+                    System.err.println("Unknown argument: " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (!Files.exists(jar)) {
+            System.err.println("Jar not found: " + jar + " (run mvn package first)");
+            System.exit(2);
+        }
+
+        Map<String, List<String>> configurations = new LinkedHashMap<>();
+        configurations.put("default CDS", List.of());
+        if (Files.exists(archive)) {
+            configurations.put("app CDS", List.of("-XX:SharedArchiveFile=" + archive, "-Xshare:auto"));
+        } else {
+            System.out.println("No archive at " + archive + "; build one with mvn -Pcds package");
+        }
+
+        System.out.printf("%-12s %14s %14s %22s%n", "", MILESTONES[0], MILESTONES[1], MILESTONES[2]);
+        for (Map.Entry<String, List<String>> config : configurations.entrySet()) {
+            long[][] samples = new long[MILESTONES.length][runs];
+            for (int run = 0; run < runs; run++) {
+                List<String> options = new ArrayList<>(config.getValue());
+                options.addAll(jvmOptions);
+                long[] times = launch(jar, options);
+                for (int m = 0; m < MILESTONES.length; m++) {
+                    samples[m][run] = times[m];
+                }
+            }
+            System.out.printf("%-12s %11d ms %11d ms %19d ms%n", config.getKey(),
+                    median(samples[0]), median(samples[1]), median(samples[2]));
+        }
+    }
+
+    /**
+     * Run the game once and return milliseconds from launch to each milestone (-1 if never seen).
+     */
+    private static long[] launch(Path jar, List<String> options) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(options);
+        command.add("-Dflappy.startupProbe=true");
+        command.add("-jar");
+        command.add(jar.toString());
+
+        long[] times = new long[MILESTONES.length];
+        Arrays.fill(times, -1);
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (!line.startsWith("startup: ")) {
+                    continue;
+                }
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                String milestone = line.substring(9, line.indexOf(' ', 9));
+                for (int m = 0; m < MILESTONES.length; m++) {
+                    if (MILESTONES[m].equals(milestone)) {
+                        times[m] = elapsed;
+                    }
+                }
+            }
+        }
+        if (!process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            System.err.println("Child JVM timed out");
+        }
+        return times;
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.flappy;
+
+import javax.swing.SwingUtilities;
+import java.time.Instant;
+
+/**
+ * Cold-start milestones for the startup harness and the CDS training run.
+ *
+ * With -Dflappy.startupProbe=true the game skips the selection screen, lets the
+ * autopilot play, prints "startup: <milestone> <ms>" lines measured from JVM
+ * start, and exits after flappy.startupProbe.frames gameplay frames (default 120)
+ * so a -XX:ArchiveClassesAtExit run captures the classes gameplay needs.
+ * Without the property every call is a no-op.
+ */
+public final class StartupProbe {
+    private static final boolean ENABLED = Boolean.getBoolean("flappy.startupProbe");
+    private static final int EXIT_AFTER_FRAMES = Integer.getInteger("flappy.startupProbe.frames", 120);
+    private static final long JVM_START_MILLIS = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+
+    private static int gameplayFrames;
+
+    private StartupProbe() {}
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Print a milestone with the time since the JVM process started.
+     */
+    public static void mark(String milestone) {
+        if (ENABLED) {
+            System.out.println("startup: " + milestone + " " + (System.currentTimeMillis() - JVM_START_MILLIS) + " ms");
+        }
+    }
+
+    /**
+     * Called for every painted gameplay frame: marks the first one and exits
+     * once enough frames have been shown.
+     */
+    public static void gameplayFrame() {
+        if (!ENABLED) {
+            return;
+        }
+        gameplayFrames++;
+        if (gameplayFrames == 1) {
+            mark("first-gameplay-frame");
+        } else if (gameplayFrames == EXIT_AFTER_FRAMES) {
+            mark("exit");
+            // Leave paint first; exit hooks (and the CDS dump) run on the exiting thread
+            SwingUtilities.invokeLater(() -> System.exit(0));
+        }
+    }
+}
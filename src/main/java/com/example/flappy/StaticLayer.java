@@ -0,0 +1,129 @@
+package com.example.flappy;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Cached static world layer: the background composed once at window size,
+ * the parallax scenery bands, and the ground pre-tiled into one strip wider
+ * than the screen. Every part is an unscaled blit (two at most per parallax
+ * band); when rendering into a scaled buffer the caches are built at device size.
+ * Parallax is on by default; -Dflappy.parallax=false leaves the plain background.
+ */
+public class StaticLayer {
+    private final BufferedImage background;
+    private final BufferedImage ground;
+    private final ParallaxLayer[] layers;
+    private BufferedImage backgroundCache;
+    private BufferedImage groundStrip;
+    private int tileWidth;
+    private int groundY;
+    private int cachedWidth = -1;
+    private int cachedHeight = -1;
+    private double cachedScaleX;
+    private double cachedScaleY;
+
+    public StaticLayer(BufferedImage background, BufferedImage ground) {
+        this.background = background;
+        this.ground = ground;
+        this.layers = Boolean.parseBoolean(System.getProperty("flappy.parallax", "true"))
+                ? ParallaxLayer.defaults()
+                : new ParallaxLayer[0];
+    }
+
+    /**
+     * Draw the background, parallax bands and ground strip scrolled by the
+     * distance the pipes have moved (PipeManager.getDistance).
+     */
+    public void render(Graphics2D g, long distance) {
+        render(g, distance, 1.0, 1.0);
+    }
+
+    /**
+     * Draw the layer into a graphics whose logical coordinates are scaled by
+     * scaleX/scaleY to device pixels, blitting the cache 1:1 in device space.
+     */
+    public void render(Graphics2D g, long distance, double scaleX, double scaleY) {
+        ensureCache(g.getDeviceConfiguration(), scaleX, scaleY);
+        boolean scaled = scaleX != 1.0 || scaleY != 1.0;
+        if (scaled) {
+            g.scale(1.0 / scaleX, 1.0 / scaleY);
+        }
+
+        g.drawImage(backgroundCache, 0, 0, null);
+        for (ParallaxLayer layer : layers) {
+            layer.render(g, distance, scaleX);
+        }
+
+        int offset = (int) (Math.round(distance * scaleX) % tileWidth);
+        g.drawImage(groundStrip, -offset, groundY, null);
+
+        if (scaled) {
+            g.scale(scaleX, scaleY);
+        }
+    }
+
+    /**
+     * Rebuild the cached images when the window size or device scale has changed.
+     */
+    private void ensureCache(GraphicsConfiguration gc, double scaleX, double scaleY) {
+        if (backgroundCache != null && Constants.WINDOW_WIDTH == cachedWidth && Constants.WINDOW_HEIGHT == cachedHeight
+                && scaleX == cachedScaleX && scaleY == cachedScaleY) {
+            return;
+        }
+        int width = Math.max(1, (int) Math.ceil(Constants.WINDOW_WIDTH * scaleX));
+        int height = Math.max(1, (int) Math.ceil(Constants.WINDOW_HEIGHT * scaleY));
+        groundY = (int) Math.round((Constants.WINDOW_HEIGHT - Constants.GROUND_HEIGHT) * scaleY);
+
+        // Background scaled once to the full window
+        backgroundCache = createImage(gc, width, height, Transparency.OPAQUE);
+        Graphics2D bg = backgroundCache.createGraphics();
+        if (background != null) {
+            bg.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            bg.drawImage(background, 0, 0, width, height, null);
+        } else {
+            bg.setColor(new Color(135, 206, 235));
+            bg.fillRect(0, 0, width, height);
+        }
+        bg.dispose();
+
+        for (ParallaxLayer layer : layers) {
+            layer.build(gc, width, scaleY);
+        }
+
+        // Ground tiled into a strip at least one tile wider than the window,
+        // so any scroll offset within a tile is covered by a single blit
+        tileWidth = Math.max(1, (int) Math.round((ground != null ? ground.getWidth() : Constants.WINDOW_WIDTH) * scaleX));
+        int tiles = width / tileWidth + 2;
+        int stripHeight = Math.max(1, (int) Math.round((ground != null ? ground.getHeight() : Constants.GROUND_HEIGHT) * scaleY));
+        groundStrip = createImage(gc, tiles * tileWidth, stripHeight, Transparency.TRANSLUCENT);
+        Graphics2D gs = groundStrip.createGraphics();
+        if (ground != null) {
+            gs.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            for (int i = 0; i < tiles; i++) {
+                gs.drawImage(ground, i * tileWidth, 0, tileWidth, stripHeight, null);
+            }
+        } else {
+            gs.setColor(new Color(139, 90, 43)); // Brown
+            gs.fillRect(0, 0, groundStrip.getWidth(), stripHeight);
+        }
+        gs.dispose();
+
+        cachedWidth = Constants.WINDOW_WIDTH;
+        cachedHeight = Constants.WINDOW_HEIGHT;
+        cachedScaleX = scaleX;
+        cachedScaleY = scaleY;
+    }
+
+    private static BufferedImage createImage(GraphicsConfiguration gc, int width, int height, int transparency) {
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        return new BufferedImage(width, height, type);
+    }
+}
@@ -0,0 +1,671 @@
+package com.example.flappy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+
+/**
+ * Two-cabinet versus mode: each cabinet flies its own bird on the same seeded
+ * course and shows the other one's bird. Only flap inputs cross the network,
+ * over UDP.
+ *
+ * Each side simulates both birds, each in its own GameWorld on an identically
+ * seeded course. The local world only ever steps on known inputs (delayed by
+ * inputDelay ticks), so it never rolls back. The remote world runs ahead of the
+ * network on predicted inputs (no flap, since flaps are rare) and keeps a
+ * WorldSnapshot of every recent tick. When a flap arrives for a tick that was
+ * already simulated, the remote world is restored to the snapshot before it
+ * and re-simulated up to the present. A side that gets MAX_ROLLBACK ticks
+ * ahead of the inputs it has received waits instead of predicting further.
+ *
+ * Packets are little-endian, 72 bytes, one per tick:
+ *   i32 magic, i32 round, i32 readyRound, i64 seed, u16 width, u16 height,
+ *   u8 skin, u8 player, u16 pipeGap, i32 frame, i32 advantage,
+ *   i32 inputFrame, i64 flapBits, i32 checksumFrame, i64 checksum,
+ *   i64 courseHash, u16 pipeSpeed, u16 pipeInterval
+ * flapBits holds the sender's last 64 inputs (bit i = tick inputFrame - i), so
+ * a lost packet is covered by the next one. Player 1's seed picks the course.
+ * Both cabinets must have the same window size, course file (Course.hash, 0
+ * for random pipes) and pipe speed, gap and interval, since the course
+ * depends on all of them; a peer that differs is refused. The
+ * checksum is of the sender's own world, which the receiver compares against
+ * its copy once that tick is confirmed.
+ *
+ * Round n starts once both sides report readyRound >= n; requestRematch()
+ * after a round raises it. Latency and packet loss can be injected on the
+ * sending side for testing on one machine.
+ */
+public class VersusSession {
+    public static final int MAX_ROLLBACK = 16;
+
+    private static final int MAGIC = 0x56504C46; // "FLPV"
+    private static final int PACKET_BYTES = 72;
+    private static final int INPUT_WINDOW = 64;  // inputs repeated in every packet
+    private static final int HISTORY = 256;      // ticks of inputs and checksums kept; power of two
+    private static final int SNAPSHOTS = 32;     // power of two, > MAX_ROLLBACK
+    private static final int DELAY_SLOTS = 256;  // injected-latency queue; power of two
+    private static final int TIME_SYNC_INTERVAL = 10;
+    private static final long PEER_TIMEOUT_NANOS = 5_000_000_000L;
+
+    private final int player; // 1 or 2
+    private final int inputDelay;
+    private final DatagramChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocateDirect(512).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer out = ByteBuffer.allocateDirect(PACKET_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private boolean sendFailed;
+
+    // Injected link conditions; delayed packets wait in a FIFO of preallocated buffers
+    private long latencyNanos;
+    private double lossRate;
+    private final SplittableRandom linkRandom = new SplittableRandom(1);
+    private final ByteBuffer[] delayed = new ByteBuffer[DELAY_SLOTS];
+    private final long[] delayedDue = new long[DELAY_SLOTS];
+    private int delayedHead;
+    private int delayedCount;
+
+    private GameWorld localWorld;
+    private GameWorld remoteWorld;
+    private IntFunction<GameWorld> remoteWorlds;
+    private int skin;
+    private long seed;
+    private boolean seedKnown;
+    private long courseHash;
+    private int pipeSpeed;
+    private int pipeGap;
+    private int pipeInterval;
+
+    // What we know about the peer
+    private boolean peerHeard;
+    private boolean peerLost;
+    private boolean incompatible;
+    private long lastHeardNanos;
+    private int peerSkin = -1;
+    private int peerReadyRound = -1;
+    private int peerFrame;
+    private int peerAdvantage;
+
+    // The current round
+    private int round = -1;
+    private int readyRound;
+    private int frame;
+    private final boolean[] localInputs = new boolean[HISTORY];
+    private int localInputFrame;
+    private final boolean[] remoteInputs = new boolean[HISTORY];
+    private int remoteInputFrame; // remote inputs are confirmed up to here
+    private final int[][] snapshots = new int[SNAPSHOTS][WorldSnapshot.MAX_INTS]; // remote world after each tick
+    private final int[] snapshotLengths = new int[SNAPSHOTS];
+    private final int[] state = new int[WorldSnapshot.MAX_INTS];
+    private long localChecksum;
+    private final long[] remoteSums = new long[HISTORY];
+    private final int[] remoteSumFrames = new int[HISTORY];
+    private final long[] peerSums = new long[HISTORY];
+    private final int[] peerSumFrames = new int[HISTORY];
+    private int lastSyncWait;
+
+    // Statistics
+    private long ticks;
+    private long rollbacks;
+    private long rolledBackTicks;
+    private long rollbackNanos;
+    private int maxRollback;
+    private long stalls;
+    private long syncWaits;
+    private long sent;
+    private long dropped;
+    private long received;
+    private long verifiedTicks;
+    private long desyncs;
+
+    /**
+     * Bind a UDP socket on bind and talk to peer only. Player 1's seed decides the course.
+     */
+    public VersusSession(int player, SocketAddress bind, SocketAddress peer, int inputDelay) throws IOException {
+        if (player != 1 && player != 2) {
+            throw new IllegalArgumentException("Versus player must be 1 or 2, got " + player);
+        }
+        if (inputDelay < 0 || inputDelay >= MAX_ROLLBACK) {
+            throw new IllegalArgumentException("Input delay must be 0.." + (MAX_ROLLBACK - 1) + " ticks");
+        }
+        this.player = player;
+        this.inputDelay = inputDelay;
+        channel = DatagramChannel.open();
+        channel.bind(bind);
+        channel.connect(peer);
+        channel.configureBlocking(false);
+        for (int i = 0; i < DELAY_SLOTS; i++) {
+            delayed[i] = ByteBuffer.allocateDirect(PACKET_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        System.out.println("Versus player " + player + " on " + channel.getLocalAddress() + ", peer " + peer);
+    }
+
+    /**
+     * Session configured by flappy.versus (1 or 2), or null when versus mode is off.
+     *   flappy.versusPort     local UDP port (7777 for player 1, 7778 for player 2)
+     *   flappy.versusPeer     host:port of the other cabinet (127.0.0.1 and the other default port)
+     *   flappy.versusDelay    local input delay in ticks (1)
+     *   flappy.versusLatency  injected one-way latency in ms (0)
+     *   flappy.versusLoss     injected packet loss in percent (0)
+     */
+    public static VersusSession fromSystemProperties() {
+        String value = System.getProperty("flappy.versus");
+        if (value == null) {
+            return null;
+        }
+        try {
+            int player = Integer.parseInt(value.trim());
+            int port = Integer.getInteger("flappy.versusPort", 7776 + player);
+            String peer = System.getProperty("flappy.versusPeer", "127.0.0.1:" + (7776 + 3 - player));
+            VersusSession session = new VersusSession(player, new InetSocketAddress(port),
+                    EnvServer.parseAddress(peer), Integer.getInteger("flappy.versusDelay", 1));
+            session.setLinkConditions(Integer.getInteger("flappy.versusLatency", 0),
+                    Integer.getInteger("flappy.versusLoss", 0) / 100.0);
+            return session;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Versus mode unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Delay every outgoing packet by latencyMillis (rounded up to whole ticks)
+     * and drop the given fraction of them.
+     */
+    public void setLinkConditions(int latencyMillis, double lossRate) {
+        this.latencyNanos = latencyMillis * 1_000_000L;
+        this.lossRate = lossRate;
+    }
+
+    /**
+     * Fly the local bird in localWorld with the given skin. The remote world is
+     * created with the peer's skin once it is known. The seed is only used by player 1.
+     */
+    public void attach(GameWorld localWorld, int skin, long seed, IntFunction<GameWorld> remoteWorlds) {
+        this.localWorld = localWorld;
+        this.skin = skin;
+        PipeManager pipes = localWorld.getPipeManager();
+        courseHash = pipes.getCourseHash();
+        pipeSpeed = pipes.getBaseSpeed();
+        pipeGap = pipes.getGapHeight();
+        pipeInterval = pipes.getSpawnInterval();
+        this.remoteWorlds = remoteWorlds;
+        if (player == 1) {
+            this.seed = seed;
+            seedKnown = true;
+        }
+        ensureRemoteWorld();
+        maybeStartRound();
+    }
+
+    /**
+     * Read every packet that has arrived, rolling back the remote world if it
+     * brings a flap that was predicted wrong. Call at the start of each tick.
+     */
+    public void receive() {
+        long now = System.nanoTime();
+        flushDelayed(now);
+        try {
+            while (true) {
+                in.clear();
+                if (channel.read(in) <= 0) {
+                    break;
+                }
+                if (in.position() == PACKET_BYTES && in.getInt(0) == MAGIC) {
+                    handle(in, now);
+                }
+            }
+        } catch (PortUnreachableException e) {
+            // The peer is not listening yet
+        } catch (IOException e) {
+            System.err.println("Versus receive failed: " + e.getMessage());
+        }
+        if (peerHeard && !peerLost && now - lastHeardNanos > PEER_TIMEOUT_NANOS) {
+            peerLost = true;
+            System.err.println("Versus peer has not been heard from for 5 s");
+        }
+    }
+
+    /**
+     * Whether the next tick may be simulated now. False while waiting for the
+     * peer, when too far ahead of its inputs, or to let a lagging peer catch up.
+     */
+    public boolean canAdvance() {
+        if (!isRunning()) {
+            return false;
+        }
+        if (isRemoteSettled()) {
+            return true;
+        }
+        if (frame - remoteInputFrame >= MAX_ROLLBACK) {
+            stalls++;
+            return false;
+        }
+        // Time sync: both sides report how far ahead they are; the one further ahead skips a tick now and then
+        if (frame - lastSyncWait >= TIME_SYNC_INTERVAL && (frame - peerFrame) - peerAdvantage > 2) {
+            lastSyncWait = frame;
+            syncWaits++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Simulate one tick with the local player's flap (applied inputDelay ticks
+     * from now) and the remote player's confirmed or predicted input.
+     *
+     * @return the local world's GameWorld.step events
+     */
+    public int advance(boolean flap) {
+        frame++;
+        ticks++;
+        localInputFrame = frame + inputDelay;
+        localInputs[localInputFrame & (HISTORY - 1)] = flap;
+
+        int events = localWorld.step(localInputs[frame & (HISTORY - 1)]);
+        remoteWorld.step(remoteInput(frame));
+        int slot = frame & (SNAPSHOTS - 1);
+        snapshotLengths[slot] = WorldSnapshot.capture(remoteWorld, snapshots[slot]);
+        if (frame <= remoteInputFrame) {
+            recordRemoteChecksum(frame, checksum(snapshots[slot], snapshotLengths[slot]));
+        }
+        localChecksum = checksum(state, WorldSnapshot.capture(localWorld, state));
+        return events;
+    }
+
+    /**
+     * Send this tick's packet. Call at the end of each tick, advanced or not.
+     */
+    public void send() {
+        out.clear();
+        out.putInt(MAGIC).putInt(round).putInt(readyRound).putLong(player == 1 ? seed : 0);
+        out.putShort((short) Constants.WINDOW_WIDTH).putShort((short) Constants.WINDOW_HEIGHT);
+        out.put((byte) skin).put((byte) player).putShort((short) pipeGap);
+        out.putInt(frame).putInt(frame - peerFrame);
+        long bits = 0;
+        for (int i = 0; i < INPUT_WINDOW && localInputFrame - i >= 1; i++) {
+            if (localInputs[(localInputFrame - i) & (HISTORY - 1)]) {
+                bits |= 1L << i;
+            }
+        }
+        out.putInt(localInputFrame).putLong(bits);
+        out.putInt(frame).putLong(localChecksum);
+        out.putLong(courseHash).putShort((short) pipeSpeed).putShort((short) pipeInterval);
+        out.flip();
+        sent++;
+
+        long now = System.nanoTime();
+        if (lossRate > 0 && linkRandom.nextDouble() < lossRate) {
+            dropped++;
+        } else if (latencyNanos > 0) {
+            if (delayedCount == DELAY_SLOTS) {
+                dropped++;
+            } else {
+                int slot = (delayedHead + delayedCount++) & (DELAY_SLOTS - 1);
+                delayed[slot].clear();
+                delayed[slot].put(out).flip();
+                delayedDue[slot] = now + latencyNanos;
+            }
+        } else {
+            write(out);
+        }
+        flushDelayed(now);
+    }
+
+    /**
+     * Ask for another round once this one is over. It starts when the peer asks too.
+     */
+    public void requestRematch() {
+        if (isRoundOver() && readyRound <= round) {
+            readyRound = round + 1;
+        }
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close versus socket: " + e.getMessage());
+        }
+    }
+
+    private void handle(ByteBuffer packet, long now) {
+        int peerPlayer = packet.get(25);
+        int width = packet.getShort(20) & 0xFFFF;
+        int height = packet.getShort(22) & 0xFFFF;
+        long peerCourse = packet.getLong(60);
+        int peerSpeed = packet.getShort(68) & 0xFFFF;
+        int peerGap = packet.getShort(26) & 0xFFFF;
+        int peerInterval = packet.getShort(70) & 0xFFFF;
+        boolean sameCourse = peerCourse == courseHash && peerSpeed == pipeSpeed && peerGap == pipeGap
+                && peerInterval == pipeInterval;
+        if (peerPlayer == player || width != Constants.WINDOW_WIDTH || height != Constants.WINDOW_HEIGHT
+                || !sameCourse) {
+            if (!incompatible) {
+                System.err.println(peerPlayer == player
+                        ? "Both cabinets are player " + player + "; start the other one with flappy.versus=" + (3 - player)
+                        : !sameCourse
+                                ? "Peer plays course " + Long.toHexString(peerCourse) + " at speed " + peerSpeed + ", gap "
+                                        + peerGap + ", interval " + peerInterval + "; ours is course "
+                                        + Long.toHexString(courseHash) + " at speed " + pipeSpeed + ", gap " + pipeGap
+                                        + ", interval " + pipeInterval + "; the courses would differ"
+                                : "Peer window is " + width + "x" + height + ", ours is " + Constants.WINDOW_WIDTH + "x"
+                                        + Constants.WINDOW_HEIGHT + "; the courses would differ");
+                incompatible = true;
+            }
+            return;
+        }
+        received++;
+        lastHeardNanos = now;
+        peerLost = false;
+        if (!peerHeard) {
+            peerHeard = true;
+            System.out.println("Versus peer connected: player " + peerPlayer);
+        }
+        if (peerSkin < 0) {
+            peerSkin = packet.get(24);
+            ensureRemoteWorld();
+        }
+        if (player == 2 && !seedKnown) {
+            seed = packet.getLong(12);
+            seedKnown = true;
+        }
+        peerReadyRound = Math.max(peerReadyRound, packet.getInt(8));
+        maybeStartRound();
+
+        if (round < 0 || packet.getInt(4) != round) {
+            return; // still in an earlier round, or already in a later one we haven't started
+        }
+        peerFrame = Math.max(peerFrame, packet.getInt(28));
+        peerAdvantage = packet.getInt(32);
+        receiveInputs(packet.getInt(36), packet.getLong(40));
+        int checksumFrame = packet.getInt(48);
+        if (checksumFrame > 0 && peerSumFrames[checksumFrame & (HISTORY - 1)] != checksumFrame) {
+            peerSumFrames[checksumFrame & (HISTORY - 1)] = checksumFrame;
+            peerSums[checksumFrame & (HISTORY - 1)] = packet.getLong(52);
+            compareChecksums(checksumFrame);
+        }
+    }
+
+    private void receiveInputs(int latest, long bits) {
+        if (latest <= remoteInputFrame || latest - remoteInputFrame > INPUT_WINDOW) {
+            return; // nothing new (the stall limit keeps gaps inside the window)
+        }
+        // Only ticks that were simulated on a prediction can be wrong; a dead bird ignores later inputs
+        int simulated = remoteWorld.isDead() ? (int) remoteWorld.getTick() : frame;
+        int mispredicted = 0;
+        for (int f = remoteInputFrame + 1; f <= latest; f++) {
+            boolean flap = ((bits >>> (latest - f)) & 1) != 0;
+            remoteInputs[f & (HISTORY - 1)] = flap;
+            if (flap && f <= simulated && mispredicted == 0) {
+                mispredicted = f;
+            }
+        }
+        int confirmedBefore = remoteInputFrame;
+        remoteInputFrame = latest;
+        if (mispredicted > 0) {
+            rollback(mispredicted);
+        }
+        // Snapshots of the ticks that just became confirmed are final now
+        for (int f = confirmedBefore + 1; f <= Math.min(latest, frame); f++) {
+            int slot = f & (SNAPSHOTS - 1);
+            recordRemoteChecksum(f, checksum(snapshots[slot], snapshotLengths[slot]));
+        }
+    }
+
+    /**
+     * Restore the remote world to the tick before from and re-simulate to the present.
+     */
+    private void rollback(int from) {
+        long start = System.nanoTime();
+        WorldSnapshot.apply(snapshots[(from - 1) & (SNAPSHOTS - 1)], remoteWorld);
+        for (int f = from; f <= frame; f++) {
+            remoteWorld.step(remoteInput(f));
+            int slot = f & (SNAPSHOTS - 1);
+            snapshotLengths[slot] = WorldSnapshot.capture(remoteWorld, snapshots[slot]);
+        }
+        int depth = frame - from + 1;
+        rollbacks++;
+        rolledBackTicks += depth;
+        maxRollback = Math.max(maxRollback, depth);
+        rollbackNanos += System.nanoTime() - start;
+    }
+
+    private boolean remoteInput(int tick) {
+        return tick <= remoteInputFrame && remoteInputs[tick & (HISTORY - 1)];
+    }
+
+    private void recordRemoteChecksum(int tick, long sum) {
+        remoteSumFrames[tick & (HISTORY - 1)] = tick;
+        remoteSums[tick & (HISTORY - 1)] = sum;
+        compareChecksums(tick);
+    }
+
+    private void compareChecksums(int tick) {
+        int slot = tick & (HISTORY - 1);
+        if (remoteSumFrames[slot] != tick || peerSumFrames[slot] != tick) {
+            return;
+        }
+        verifiedTicks++;
+        if (remoteSums[slot] != peerSums[slot] && desyncs++ == 0) {
+            System.err.println("Versus desync at tick " + tick + " of round " + (round + 1));
+        }
+    }
+
+    private void ensureRemoteWorld() {
+        if (remoteWorld == null && localWorld != null && peerSkin >= 0) {
+            remoteWorld = remoteWorlds.apply(peerSkin);
+        }
+    }
+
+    private void maybeStartRound() {
+        int next = round + 1;
+        if (remoteWorld == null || !seedKnown || readyRound < next || peerReadyRound < next) {
+            return;
+        }
+        round = next;
+        long courseSeed = courseSeed(seed, round);
+        localWorld.reset(courseSeed);
+        remoteWorld.reset(courseSeed);
+        frame = 0;
+        Arrays.fill(localInputs, false);
+        localInputFrame = inputDelay; // the first ticks have no local input yet
+        Arrays.fill(remoteInputs, false);
+        remoteInputFrame = 0;
+        snapshotLengths[0] = WorldSnapshot.capture(remoteWorld, snapshots[0]);
+        localChecksum = 0;
+        Arrays.fill(remoteSumFrames, -1);
+        Arrays.fill(peerSumFrames, -1);
+        peerFrame = 0;
+        peerAdvantage = 0;
+        lastSyncWait = 0;
+        System.out.println("Versus round " + (round + 1) + " started");
+    }
+
+    private void flushDelayed(long now) {
+        while (delayedCount > 0 && delayedDue[delayedHead] <= now) {
+            write(delayed[delayedHead]);
+            delayedHead = (delayedHead + 1) & (DELAY_SLOTS - 1);
+            delayedCount--;
+        }
+    }
+
+    private void write(ByteBuffer packet) {
+        try {
+            channel.write(packet);
+        } catch (PortUnreachableException e) {
+            // The peer is not listening yet
+        } catch (IOException e) {
+            if (!sendFailed) {
+                System.err.println("Versus send failed: " + e.getMessage());
+                sendFailed = true;
+            }
+        }
+    }
+
+    private static long courseSeed(long seed, int round) {
+        // SplitMix64 finalizer, so consecutive rounds get unrelated courses
+        long z = seed + (round + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long checksum(int[] values, int length) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ values[i]) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    private boolean isRemoteSettled() {
+        // A dead remote bird can't change once every input up to its death is confirmed
+        return remoteWorld.isDead() && remoteInputFrame >= remoteWorld.getTick();
+    }
+
+    public boolean isConnected() {
+        return peerHeard && !incompatible;
+    }
+
+    public boolean isPeerLost() {
+        return peerLost;
+    }
+
+    /**
+     * A round has started and not finished.
+     */
+    public boolean isRunning() {
+        return round >= 0 && !isRoundOver();
+    }
+
+    /**
+     * Both birds are dead and the remote one's death no longer depends on a prediction.
+     */
+    public boolean isRoundOver() {
+        return round >= 0 && localWorld.isDead() && isRemoteSettled();
+    }
+
+    public boolean isRematchPending() {
+        return readyRound > round;
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    public int getFrame() {
+        return frame;
+    }
+
+    public GameWorld getRemoteWorld() {
+        return remoteWorld;
+    }
+
+    public long getDesyncs() {
+        return desyncs;
+    }
+
+    public long getVerifiedTicks() {
+        return verifiedTicks;
+    }
+
+    public String summary() {
+        return String.format("Versus P%d: %d ticks in %d rounds, %d rollbacks (avg %.1f, max %d ticks, %.1f us each),"
+                        + " %d stalls, %d sync waits, %d sent / %d dropped / %d received, %d ticks verified, %d desyncs",
+                player, ticks, round + 1, rollbacks, rollbacks == 0 ? 0.0 : (double) rolledBackTicks / rollbacks,
+                maxRollback, rollbacks == 0 ? 0.0 : rollbackNanos / 1000.0 / rollbacks, stalls, syncWaits,
+                sent, dropped, received, verifiedTicks, desyncs);
+    }
+
+    /**
+     * Loopback test: two sessions in one process race autopilot birds over
+     * 127.0.0.1 with injected latency and loss, rematching after every round,
+     * then report rollback statistics and whether both sides stayed in sync.
+     * Exits with status 1 on a desync.
+     *
+     * Usage: java -cp flappy.jar com.example.flappy.VersusSession [seconds] [latencyMs] [lossPercent] [delayTicks]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int latency = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int lossPercent = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int delay = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+        int birdWidth = Constants.BIRD_DISPLAY_WIDTH;
+        int birdHeight = Constants.BIRD_DISPLAY_WIDTH * 7 / 10;
+
+        // Worst-case rollback cost: restore a snapshot and re-simulate MAX_ROLLBACK ticks
+        GameWorld world = GameWorld.headless(birdWidth, birdHeight);
+        world.reset(7);
+        Autopilot pilot = new Autopilot();
+        for (int i = 0; i < 600 && !world.isDead(); i++) {
+            world.step(pilot.decide(world.getBird(), world.getPipeManager()));
+        }
+        int[] snapshot = new int[WorldSnapshot.MAX_INTS];
+        WorldSnapshot.capture(world, snapshot);
+        int iterations = 200_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            WorldSnapshot.apply(snapshot, world);
+            for (int t = 0; t < MAX_ROLLBACK; t++) {
+                world.step((t & 7) == 0);
+            }
+        }
+        System.out.printf("Rollback of %d ticks: %.1f us%n", MAX_ROLLBACK,
+                (System.nanoTime() - start) / 1000.0 / iterations);
+
+        InetSocketAddress first = new InetSocketAddress("127.0.0.1", 47777);
+        InetSocketAddress second = new InetSocketAddress("127.0.0.1", 47778);
+        VersusSession[] sessions = {
+                new VersusSession(1, first, second, delay), new VersusSession(2, second, first, delay)};
+        GameWorld[] locals = new GameWorld[2];
+        Autopilot[] pilots = new Autopilot[2];
+        for (int i = 0; i < 2; i++) {
+            locals[i] = GameWorld.headless(birdWidth, birdHeight);
+            pilots[i] = new Autopilot();
+            sessions[i].setLinkConditions(latency, lossPercent / 100.0);
+            sessions[i].attach(locals[i], 0, 12345, skin -> GameWorld.headless(birdWidth, birdHeight));
+        }
+        System.out.printf("Loopback match: %d s, %d ms latency, %d%% loss, %d tick input delay%n",
+                seconds, latency, lossPercent, delay);
+
+        long tickNanos = 1_000_000_000L / Constants.TARGET_FPS;
+        long next = System.nanoTime();
+        long end = next + seconds * 1_000_000_000L;
+        while (next < end) {
+            for (int i = 0; i < 2; i++) {
+                VersusSession session = sessions[i];
+                session.receive();
+                if (session.canAdvance()) {
+                    session.advance(pilots[i].decide(locals[i].getBird(), locals[i].getPipeManager()));
+                } else if (session.isRoundOver()) {
+                    session.requestRematch();
+                }
+                session.send();
+            }
+            next += tickNanos;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+            }
+        }
+
+        boolean ok = true;
+        for (VersusSession session : sessions) {
+            System.out.println(session.summary());
+            ok &= session.getDesyncs() == 0 && session.getVerifiedTicks() > 0;
+            session.close();
+        }
+        System.out.println(ok ? "In sync" : "FAILED: desync or nothing verified");
+        System.exit(ok ? 0 : 1);
+    }
+}
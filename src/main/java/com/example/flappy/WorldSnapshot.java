@@ -0,0 +1,162 @@
+package com.example.flappy;
+
+import java.util.List;
+
+/**
+ * Codec for one tick of GameWorld state as a flat int vector, and a compact
+ * byte encoding of that vector relative to a base (keyframe) vector.
+ *
+ * Layout: tick (2 ints), score, dead, spawn timer, pipe RNG state (2 ints),
+ * bird y / velY / rotation (float bits), scroll distance (2 ints), pipe
+ * count, then per pipe x, gapY,
+ * width, gapHeight, scored. Bird x is fixed and sprite data is not state.
+ *
+ * Encoding: a varint int count, then each int as a zigzag varint of its
+ * difference from the base at the same index (0 past the base's end). With
+ * no base the frame is a keyframe. Ticks close to their keyframe differ in a
+ * few low bits per field, so most fields take one or two bytes.
+ * Every method works on caller-owned arrays and allocates nothing.
+ */
+public final class WorldSnapshot {
+    public static final int MAX_PIPES = 64;
+
+    private static final int TICK_LOW = 0;
+    private static final int TICK_HIGH = 1;
+    private static final int SCORE = 2;
+    private static final int DEAD = 3;
+    private static final int SPAWN_TIMER = 4;
+    private static final int RNG_LOW = 5;
+    private static final int RNG_HIGH = 6;
+    private static final int BIRD_Y = 7;
+    private static final int BIRD_VEL_Y = 8;
+    private static final int BIRD_ROTATION = 9;
+    private static final int DISTANCE_LOW = 10;
+    private static final int DISTANCE_HIGH = 11;
+    private static final int PIPE_COUNT = 12;
+    private static final int HEADER = 13;
+    private static final int PIPE_FIELDS = 5;
+
+    public static final int MAX_INTS = HEADER + MAX_PIPES * PIPE_FIELDS;
+    public static final int MAX_BYTES = maxBytes(MAX_PIPES);
+
+    private WorldSnapshot() {}
+
+    /**
+     * Longest encoding of a tick with the given number of pipes.
+     */
+    public static int maxBytes(int pipes) {
+        return 5 + (HEADER + Math.min(pipes, MAX_PIPES) * PIPE_FIELDS) * 5; // 5 varint bytes per int
+    }
+
+    /**
+     * Write the world's state into state; returns the number of ints used.
+     */
+    public static int capture(GameWorld world, int[] state) {
+        Bird bird = world.getBird();
+        PipeManager pipeManager = world.getPipeManager();
+        long tick = world.getTick();
+        long rng = pipeManager.getRngState();
+        long distance = pipeManager.getDistance();
+        state[TICK_LOW] = (int) tick;
+        state[TICK_HIGH] = (int) (tick >>> 32);
+        state[SCORE] = world.getScore();
+        state[DEAD] = world.isDead() ? 1 : 0;
+        state[SPAWN_TIMER] = pipeManager.getSpawnTimer();
+        state[RNG_LOW] = (int) rng;
+        state[RNG_HIGH] = (int) (rng >>> 32);
+        state[BIRD_Y] = Float.floatToRawIntBits(bird.getExactY());
+        state[BIRD_VEL_Y] = Float.floatToRawIntBits(bird.getVelY());
+        state[BIRD_ROTATION] = Float.floatToRawIntBits(bird.getRotation());
+        state[DISTANCE_LOW] = (int) distance;
+        state[DISTANCE_HIGH] = (int) (distance >>> 32);
+
+        List<Pipe> pipes = pipeManager.getPipes();
+        int count = Math.min(pipes.size(), MAX_PIPES);
+        state[PIPE_COUNT] = count;
+        int n = HEADER;
+        for (int i = 0; i < count; i++) {
+            Pipe pipe = pipes.get(i);
+            state[n++] = pipe.getX();
+            state[n++] = pipe.getGapY();
+            state[n++] = pipe.getWidth();
+            state[n++] = pipe.getGapHeight();
+            state[n++] = pipe.isScored() ? 1 : 0;
+        }
+        return n;
+    }
+
+    /**
+     * Put the world back into a captured state.
+     */
+    public static void apply(int[] state, GameWorld world) {
+        world.getBird().restore(Float.intBitsToFloat(state[BIRD_Y]),
+                Float.intBitsToFloat(state[BIRD_VEL_Y]), Float.intBitsToFloat(state[BIRD_ROTATION]));
+        PipeManager pipeManager = world.getPipeManager();
+        pipeManager.restoreState(state[SPAWN_TIMER], getLong(state, RNG_LOW), getLong(state, DISTANCE_LOW));
+        int count = state[PIPE_COUNT];
+        for (int i = 0, n = HEADER; i < count; i++, n += PIPE_FIELDS) {
+            pipeManager.restorePipe(state[n], state[n + 1], state[n + 2], state[n + 3], state[n + 4] != 0);
+        }
+        world.restore(getLong(state, TICK_LOW), state[SCORE], state[DEAD] != 0);
+    }
+
+    public static long getTick(int[] state) {
+        return getLong(state, TICK_LOW);
+    }
+
+    /**
+     * Encode state[0, length) against base[0, baseLength) (base may be null for
+     * a keyframe) into out at offset; returns the number of bytes written.
+     */
+    public static int encode(int[] state, int length, int[] base, int baseLength, byte[] out, int offset) {
+        int p = writeVarint(out, offset, length);
+        for (int i = 0; i < length; i++) {
+            int reference = base != null && i < baseLength ? base[i] : 0;
+            int delta = state[i] - reference;
+            p = writeVarint(out, p, (delta << 1) ^ (delta >> 31));
+        }
+        return p - offset;
+    }
+
+    /**
+     * Decode a frame written by encode against the same base into state;
+     * returns the number of ints decoded.
+     */
+    public static int decode(byte[] in, int offset, int[] base, int baseLength, int[] state) {
+        int p = offset;
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in[p++];
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            int zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in[p++];
+                zigzag |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            int reference = base != null && i < baseLength ? base[i] : 0;
+            state[i] = reference + ((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] out, int p, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[p++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[p++] = (byte) value;
+        return p;
+    }
+
+    private static long getLong(int[] state, int lowIndex) {
+        return (state[lowIndex] & 0xFFFFFFFFL) | ((long) state[lowIndex + 1] << 32);
+    }
+}